@@ -0,0 +1,64 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.Mutation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Compares the sequential {@link SpannerHelper#batchWrite} with {@link SpannerBatchWriter} against a database
+ * client with a fixed commit latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchWriteBenchmark {
+
+    private static final int COLUMNS = 8;
+
+    @Param({"100000"})
+    public int mutationCount;
+
+    @Param({"0", "5000"})
+    public long commitLatencyMicros;
+
+    private FakeDatabaseClient db;
+    private List<Mutation> mutations;
+    private SpannerBatchWriter writer;
+
+    @Setup
+    public void setUp() {
+        db = new FakeDatabaseClient(commitLatencyMicros);
+        mutations = new ArrayList<>(mutationCount);
+        for (long i = 0; i < mutationCount; i++) {
+            mutations.add(FakeDatabaseClient.row(i, COLUMNS));
+        }
+        writer = new SpannerBatchWriter(db.getClient());
+    }
+
+    @TearDown
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Benchmark
+    public void helperBatchWrite() {
+        SpannerHelper.batchWrite(db.getClient(), mutations, SpannerBatchWriter.DEFAULT_MAX_CELLS / COLUMNS);
+    }
+
+    @Benchmark
+    public long batchWriterList() {
+        return writer.write(mutations);
+    }
+
+    @Benchmark
+    public long batchWriterStream() {
+        return writer.write(LongStream.range(0, mutationCount).mapToObj(i -> FakeDatabaseClient.row(i, COLUMNS)));
+    }
+}
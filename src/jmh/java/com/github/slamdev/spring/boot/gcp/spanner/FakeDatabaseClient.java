@@ -0,0 +1,65 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Mutation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DatabaseClient} for benchmarks that accepts writes after a fixed commit latency and only counts the written
+ * mutations. Everything else fails.
+ */
+final class FakeDatabaseClient {
+
+    private final long commitLatencyMicros;
+    private final LongAdder mutations = new LongAdder();
+    private final DatabaseClient client;
+
+    FakeDatabaseClient(long commitLatencyMicros) {
+        this.commitLatencyMicros = commitLatencyMicros;
+        this.client = (DatabaseClient) Proxy.newProxyInstance(DatabaseClient.class.getClassLoader(),
+                new Class<?>[]{DatabaseClient.class}, (proxy, method, args) -> invoke(method, args));
+    }
+
+    DatabaseClient getClient() {
+        return client;
+    }
+
+    long getMutationCount() {
+        return mutations.sum();
+    }
+
+    private Object invoke(Method method, Object[] args) throws InterruptedException {
+        switch (method.getName()) {
+            case "write":
+            case "writeAtLeastOnce":
+                for (Object ignored : (Iterable<?>) args[0]) {
+                    mutations.increment();
+                }
+                if (commitLatencyMicros > 0) {
+                    TimeUnit.MICROSECONDS.sleep(commitLatencyMicros);
+                }
+                return Timestamp.now();
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return args[0] == client;
+            case "toString":
+                return "FakeDatabaseClient";
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    static Mutation row(long id, int columns) {
+        Mutation.WriteBuilder builder = Mutation.newInsertOrUpdateBuilder("benchmark").set("id").to(id);
+        for (int i = 1; i < columns; i++) {
+            builder.set("column_" + i).to("value-" + id + "-" + i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import lombok.Data;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Maps an in-memory result set of wide rows with name based, index based and bean mappers. The index based and bean
+ * mappers read rows through {@link com.google.cloud.spanner.StructReader}, so they apply to the result set directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final Type ROW_TYPE = Type.struct(
+            StructField.of("id", Type.int64()),
+            StructField.of("tenant_id", Type.string()),
+            StructField.of("name", Type.string()),
+            StructField.of("score", Type.float64()),
+            StructField.of("active", Type.bool()),
+            StructField.of("created_at", Type.timestamp()),
+            StructField.of("visits", Type.int64()),
+            StructField.of("comment", Type.string()));
+
+    private static final Function<ResultSet, Row> BY_NAME = rs -> {
+        Row row = new Row();
+        row.setId(rs.getLong("id"));
+        row.setTenantId(rs.getString("tenant_id"));
+        row.setName(rs.getString("name"));
+        row.setScore(rs.getDouble("score"));
+        row.setActive(rs.getBoolean("active"));
+        row.setCreatedAt(rs.getTimestamp("created_at"));
+        row.setVisits((int) rs.getLong("visits"));
+        if (SpannerHelper.isColumnExists("comment", rs) && !rs.isNull("comment")) {
+            row.setComment(rs.getString("comment"));
+        }
+        return row;
+    };
+
+    private static final Function<ResultSet, Row> BY_INDEX = SpannerHelper.rowMapper(columns -> {
+        int id = columns.getIndex("id");
+        int tenantId = columns.getIndex("tenant_id");
+        int name = columns.getIndex("name");
+        int score = columns.getIndex("score");
+        int active = columns.getIndex("active");
+        int createdAt = columns.getIndex("created_at");
+        int visits = columns.getIndex("visits");
+        int comment = columns.indexOf("comment");
+        return reader -> {
+            Row row = new Row();
+            row.setId(reader.getLong(id));
+            row.setTenantId(reader.getString(tenantId));
+            row.setName(reader.getString(name));
+            row.setScore(reader.getDouble(score));
+            row.setActive(reader.getBoolean(active));
+            row.setCreatedAt(reader.getTimestamp(createdAt));
+            row.setVisits((int) reader.getLong(visits));
+            if (comment >= 0 && !reader.isNull(comment)) {
+                row.setComment(reader.getString(comment));
+            }
+            return row;
+        };
+    });
+
+    private static final Function<ResultSet, Row> BEAN = SpannerHelper.beanMapper(Row.class);
+
+    @Param({"10000"})
+    public int rowCount;
+
+    private List<Struct> rows;
+
+    @Setup
+    public void setUp() {
+        rows = new ArrayList<>(rowCount);
+        Timestamp now = Timestamp.now();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(Struct.newBuilder()
+                    .set("id").to(i)
+                    .set("tenant_id").to("tenant-" + i % 100)
+                    .set("name").to("name-" + i)
+                    .set("score").to(i * 0.5)
+                    .set("active").to(i % 2 == 0)
+                    .set("created_at").to(now)
+                    .set("visits").to(i % 1000)
+                    .set("comment").to(i % 3 == 0 ? null : "comment-" + i)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<Row> mapAllByName() {
+        return SpannerHelper.mapAll(resultSet(), BY_NAME);
+    }
+
+    @Benchmark
+    public List<Row> mapAllByIndex() {
+        return SpannerHelper.mapAll(resultSet(), BY_INDEX);
+    }
+
+    @Benchmark
+    public List<Row> mapAllBean() {
+        return SpannerHelper.mapAll(resultSet(), BEAN);
+    }
+
+    @Benchmark
+    public long streamByIndex() {
+        return SpannerHelper.stream(resultSet(), BY_INDEX).count();
+    }
+
+    private ResultSet resultSet() {
+        return ResultSets.forRows(ROW_TYPE, rows);
+    }
+
+    @Data
+    public static class Row {
+        private long id;
+        private String tenantId;
+        private String name;
+        private double score;
+        private boolean active;
+        private Timestamp createdAt;
+        private int visits;
+        private String comment;
+    }
+}
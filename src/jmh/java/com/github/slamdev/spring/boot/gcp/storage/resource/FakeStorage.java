@@ -0,0 +1,203 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Tuple;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.StorageOptions;
+import com.google.cloud.storage.spi.StorageRpcFactory;
+import com.google.cloud.storage.spi.v1.StorageRpc;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory {@link Storage} for benchmarks. The storage is the regular client, built through {@link StorageOptions}
+ * with a fake {@link StorageRpc}, so blobs, pages and channels are created by the client library itself and only
+ * its public API is used. Supports object listing with prefixes and the current directory delimiter, metadata
+ * lookups, reads, resumable writes and deletes, and fails on everything else.
+ */
+final class FakeStorage {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final String ETAG = "benchmark";
+
+    private final Map<String, NavigableMap<String, byte[]>> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final Storage storage;
+
+    FakeStorage() {
+        StorageRpc rpc = (StorageRpc) Proxy.newProxyInstance(StorageRpc.class.getClassLoader(),
+                new Class<?>[]{StorageRpc.class}, (proxy, method, args) -> invoke(proxy, method, args));
+        StorageRpcFactory rpcFactory = options -> rpc;
+        this.storage = StorageOptions.newBuilder()
+                .setProjectId("benchmark")
+                .setCredentials(NoCredentials.getInstance())
+                .setServiceRpcFactory(rpcFactory)
+                .build()
+                .getService();
+    }
+
+    Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Adds an object without copying its contents, the same array may back many objects.
+     */
+    void put(String bucket, String name, byte[] contents) {
+        objects(bucket).put(name, contents);
+    }
+
+    private Object invoke(Object proxy, Method method, Object[] args) {
+        int count = args == null ? 0 : args.length;
+        switch (method.getName()) {
+            case "list":
+                if (count == 2 && args[0] instanceof String) {
+                    return list((String) args[0], (Map<?, ?>) args[1]);
+                }
+                break;
+            case "get":
+                if (count == 2 && args[0] instanceof StorageObject) {
+                    return get((StorageObject) args[0]);
+                }
+                break;
+            case "read":
+                if (count == 4 && args[0] instanceof StorageObject) {
+                    return read((StorageObject) args[0], (Long) args[2], (Integer) args[3]);
+                }
+                break;
+            case "open":
+                if (count == 2 && args[0] instanceof StorageObject) {
+                    return open((StorageObject) args[0]);
+                }
+                break;
+            case "write":
+                if (count == 6 && args[0] instanceof String) {
+                    write((String) args[0], (byte[]) args[1], (Integer) args[2], (Integer) args[4],
+                            (Boolean) args[5]);
+                    return null;
+                }
+                break;
+            case "delete":
+                if (count == 2 && args[0] instanceof StorageObject) {
+                    StorageObject object = (StorageObject) args[0];
+                    return objects(object.getBucket()).remove(object.getName()) != null;
+                }
+                break;
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return args[0] == proxy;
+            case "toString":
+                return "FakeStorageRpc";
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    /**
+     * Lists a page of objects, the page token being the name to continue from. With the delimiter every
+     * sub-directory is returned once, flagged the way the HTTP client flags the prefixes of a listing.
+     */
+    private Tuple<String, Iterable<StorageObject>> list(String bucket, Map<?, ?> options) {
+        String prefix = options.containsKey(StorageRpc.Option.PREFIX)
+                ? (String) options.get(StorageRpc.Option.PREFIX) : "";
+        boolean currentDirectory = options.containsKey(StorageRpc.Option.DELIMITER);
+        String next = options.containsKey(StorageRpc.Option.PAGE_TOKEN)
+                ? (String) options.get(StorageRpc.Option.PAGE_TOKEN) : prefix;
+        NavigableMap<String, byte[]> objects = objects(bucket);
+        List<StorageObject> values = new ArrayList<>();
+        while (values.size() < PAGE_SIZE) {
+            Map.Entry<String, byte[]> entry = objects.ceilingEntry(next);
+            if (entry == null || !entry.getKey().startsWith(prefix)) {
+                next = null;
+                break;
+            }
+            String name = entry.getKey();
+            int delimiter = currentDirectory ? name.indexOf('/', prefix.length()) : -1;
+            if (delimiter >= 0) {
+                String directory = name.substring(0, delimiter + 1);
+                values.add(new StorageObject().set("isDirectory", true).setBucket(bucket).setName(directory)
+                        .setSize(BigInteger.ZERO));
+                next = directory + Character.MAX_VALUE;
+            } else {
+                values.add(object(bucket, name, entry.getValue().length));
+                next = name + Character.MIN_VALUE;
+            }
+        }
+        return Tuple.of(next, values);
+    }
+
+    private StorageObject get(StorageObject object) {
+        byte[] contents = objects(object.getBucket()).get(object.getName());
+        return contents == null ? null : object(object.getBucket(), object.getName(), contents.length);
+    }
+
+    private Tuple<String, byte[]> read(StorageObject object, long position, int bytes) {
+        byte[] contents = objects(object.getBucket()).get(object.getName());
+        if (contents == null) {
+            throw new StorageException(404, "Object " + object.getName() + " not found");
+        }
+        int from = (int) Math.min(position, contents.length);
+        int length = Math.min(bytes, contents.length - from);
+        byte[] chunk = new byte[length];
+        System.arraycopy(contents, from, chunk, 0, length);
+        return Tuple.of(ETAG, chunk);
+    }
+
+    private String open(StorageObject object) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new Upload(object.getBucket(), object.getName()));
+        return uploadId;
+    }
+
+    private void write(String uploadId, byte[] bytes, int offset, int length, boolean last) {
+        Upload upload = uploads.get(uploadId);
+        upload.contents.write(bytes, offset, length);
+        if (last) {
+            uploads.remove(uploadId);
+            put(upload.bucket, upload.name, upload.contents.toByteArray());
+        }
+    }
+
+    private static StorageObject object(String bucket, String name, long size) {
+        return new StorageObject()
+                .setBucket(bucket)
+                .setName(name)
+                .setGeneration(1L)
+                .setSize(BigInteger.valueOf(size))
+                .setEtag(ETAG)
+                .setUpdated(new DateTime(0L))
+                .setSelfLink("https://storage.local/" + bucket + "/" + name);
+    }
+
+    private NavigableMap<String, byte[]> objects(String bucket) {
+        return buckets.computeIfAbsent(bucket, b -> new ConcurrentSkipListMap<>());
+    }
+
+    private static final class Upload {
+
+        private final String bucket;
+        private final String name;
+        private final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+
+        private Upload(String bucket, String name) {
+            this.bucket = bucket;
+            this.name = name;
+        }
+    }
+}
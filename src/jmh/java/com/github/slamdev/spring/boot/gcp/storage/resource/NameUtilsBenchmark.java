@@ -0,0 +1,58 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of gcs locations, with and without trailing slashes and generations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameUtilsBenchmark {
+
+    private static final int LOCATION_COUNT = 10_000;
+
+    private String[] locations;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        locations = new String[LOCATION_COUNT];
+        for (int i = 0; i < LOCATION_COUNT; i++) {
+            String location = String.format("gcs://bucket-%d/tenants/tenant-%d/part-%05d.json", random.nextInt(10),
+                    random.nextInt(100), random.nextInt(100_000));
+            switch (i % 3) {
+                case 1:
+                    location += "/";
+                    break;
+                case 2:
+                    location += "^" + random.nextInt(Integer.MAX_VALUE);
+                    break;
+                default:
+                    break;
+            }
+            locations[i] = i % 5 == 0 ? location.replace("gcs://", "GCS://") : location;
+        }
+    }
+
+    @Benchmark
+    public void isStorageResource(Blackhole blackhole) {
+        for (String location : locations) {
+            blackhole.consume(NameUtils.isStorageResource(location));
+        }
+    }
+
+    @Benchmark
+    public void parseLocation(Blackhole blackhole) {
+        for (String location : locations) {
+            blackhole.consume(NameUtils.parseLocation(location));
+        }
+    }
+}
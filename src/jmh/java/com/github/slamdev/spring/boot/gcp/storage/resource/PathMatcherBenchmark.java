@@ -0,0 +1,63 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CompiledAntPathMatcher} with {@link AntPathMatcher} on object names shaped like the ones of a
+ * multi tenant bucket, e.g. {@code tenants/tenant-42/2024-05-17/part-00017.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathMatcherBenchmark {
+
+    private static final String[] EXTENSIONS = {"json", "csv", "gz", "parquet"};
+
+    @Param({"tenants/*/2024-*/*.json", "tenants/**/*.gz", "tenants/tenant-1?/**/part-000??.csv"})
+    public String pattern;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    private String[] keys;
+    private PathMatcher antPathMatcher;
+    private PathMatcher compiledAntPathMatcher;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = String.format("tenants/tenant-%d/%d-%02d-%02d/part-%05d.%s", random.nextInt(100),
+                    2022 + random.nextInt(3), 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(1000),
+                    EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+        }
+        antPathMatcher = new AntPathMatcher();
+        compiledAntPathMatcher = new CompiledAntPathMatcher();
+    }
+
+    @Benchmark
+    public void antPathMatcher(Blackhole blackhole) {
+        match(antPathMatcher, blackhole);
+    }
+
+    @Benchmark
+    public void compiledAntPathMatcher(Blackhole blackhole) {
+        match(compiledAntPathMatcher, blackhole);
+    }
+
+    private void match(PathMatcher matcher, Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(matcher.match(pattern, key));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Resolves location patterns against an in-memory bucket of synthetic object names shaped like the ones of a
+ * multi tenant bucket, e.g. {@code tenants/tenant-42/2024-05-17/part-00017.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PatternResolutionBenchmark {
+
+    private static final String BUCKET = "benchmark";
+
+    private static final String[] EXTENSIONS = {"json", "csv", "gz", "parquet"};
+
+    @Param({"gcs://benchmark/tenants/tenant-1?/2024-*/*.json", "gcs://benchmark/tenants/**/part-0000?.gz"})
+    public String pattern;
+
+    @Param({"10000", "100000", "1000000"})
+    public int keyCount;
+
+    @Param({"1", "8"})
+    public int listingParallelism;
+
+    private ExecutorService listingExecutor;
+    private PathMatchingSimpleStorageResourcePatternResolver resolver;
+
+    @Setup
+    public void setUp() {
+        FakeStorage fakeStorage = new FakeStorage();
+        byte[] contents = new byte[128];
+        Random random = new Random(42);
+        for (int i = 0; i < keyCount; i++) {
+            fakeStorage.put(BUCKET, String.format("tenants/tenant-%d/%d-%02d-%02d/part-%05d.%s", random.nextInt(100),
+                    2022 + random.nextInt(3), 1 + random.nextInt(12), 1 + random.nextInt(28), i,
+                    EXTENSIONS[random.nextInt(EXTENSIONS.length)]), contents);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("benchmark-listing-");
+        threadFactory.setDaemon(true);
+        listingExecutor = Executors.newFixedThreadPool(listingParallelism, threadFactory);
+        SimpleStorageResourceLoader loader = new SimpleStorageResourceLoader(fakeStorage.getStorage());
+        resolver = new PathMatchingSimpleStorageResourcePatternResolver(fakeStorage.getStorage(), loader,
+                new PathMatchingResourcePatternResolver());
+        resolver.setListingExecutor(listingExecutor);
+        resolver.setListingParallelism(listingParallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        listingExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Resource[] getResources() throws IOException {
+        return resolver.getResources(pattern);
+    }
+
+    @Benchmark
+    public long streamResources() {
+        try (Stream<StorageResource> resources = resolver.streamStorageResources(pattern)) {
+            return resources.count();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies the contents of an in-memory object through the stream and the channel based APIs of
+ * {@link StorageResource}, so the copy overhead is measured without any network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageCopyBenchmark {
+
+    private static final String LOCATION = "gcs://benchmark/object.bin";
+
+    @Param({"1048576", "67108864"})
+    public int objectSize;
+
+    private StorageResource resource;
+
+    @Setup
+    public void setUp() {
+        FakeStorage fakeStorage = new FakeStorage();
+        fakeStorage.put("benchmark", "object.bin", new byte[objectSize]);
+        resource = (StorageResource) new SimpleStorageResourceLoader(fakeStorage.getStorage()).getResource(LOCATION);
+    }
+
+    @Benchmark
+    public long inputStreamCopy(Blackhole blackhole) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copy(in, new BlackholeOutputStream(blackhole));
+        }
+    }
+
+    @Benchmark
+    public long transferTo(Blackhole blackhole) throws IOException {
+        return resource.transferTo(new BlackholeChannel(blackhole));
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+
+        private final Blackhole blackhole;
+
+        private BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+
+    private static final class BlackholeChannel implements WritableByteChannel {
+
+        private final Blackhole blackhole;
+
+        private BlackholeChannel(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = src.remaining();
+            blackhole.consume(src);
+            src.position(src.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
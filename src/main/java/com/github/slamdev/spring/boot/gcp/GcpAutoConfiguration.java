@@ -1,35 +1,98 @@
 package com.github.slamdev.spring.boot.gcp;
 
+import com.github.slamdev.spring.boot.gcp.credentials.RefreshingCredentials;
+import com.github.slamdev.spring.boot.gcp.metrics.ClientInitializationMetrics;
+import com.github.slamdev.spring.boot.gcp.metrics.CredentialsRefreshMetrics;
+import com.github.slamdev.spring.boot.gcp.metrics.SpannerMetrics;
+import com.github.slamdev.spring.boot.gcp.metrics.StorageMetrics;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerBatchWriter;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerKeyLoaderFactory;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerPartitionedReader;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerReader;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerWarmUp;
+import com.github.slamdev.spring.boot.gcp.storage.resource.CompositeUploader;
+import com.github.slamdev.spring.boot.gcp.storage.resource.LocalFileCache;
+import com.github.slamdev.spring.boot.gcp.storage.resource.RangedDownloader;
+import com.github.slamdev.spring.boot.gcp.storage.resource.StorageMetadataCache;
 import com.github.slamdev.spring.boot.gcp.storage.resource.StorageResourceLoaderBeanPostProcessor;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.spanner.*;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.bind.PropertySourcesPropertyValues;
+import org.springframework.boot.bind.RelaxedDataBinder;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Locale.ENGLISH;
 
 @EnableConfigurationProperties(GcpProperties.class)
 @Configuration
 public class GcpAutoConfiguration {
 
+    private static final String CLOUD_PLATFORM_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
+
+    /**
+     * Static and bound from the environment directly, the storage client is required by a post processor before
+     * {@link GcpProperties} are bound.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public static GcpClientInitializer gcpClientInitializer(Environment environment) {
+        String mode = environment.getProperty("google.cloud.initialization", GcpProperties.Initialization.EAGER.name());
+        return new GcpClientInitializer(GcpProperties.Initialization.valueOf(mode.trim().toUpperCase(ENGLISH)));
+    }
+
     @ConditionalOnProperty("google.cloud.credentials-resource")
     @Configuration
     public static class ForGoogleCredentials {
 
+        /**
+         * Scoped once for all clients, otherwise every client scopes its own copy and fetches its own token.
+         */
         @ConditionalOnMissingBean
         @Bean
         public GoogleCredentials googleCredentials(Environment environment, ResourceLoader resourceLoader) throws IOException {
             String path = environment.getProperty("google.cloud.credentials-resource");
-            return GoogleCredentials.fromStream(resourceLoader.getResource(path).getInputStream());
+            GoogleCredentials credentials = GoogleCredentials.fromStream(resourceLoader.getResource(path).getInputStream());
+            if (credentials.createScopedRequired()) {
+                credentials = credentials.createScoped(Collections.singleton(CLOUD_PLATFORM_SCOPE));
+            }
+            GcpProperties.CredentialsRefresh refresh = bindCredentialsRefreshProperties(environment);
+            if (!refresh.isEnabled()) {
+                return credentials;
+            }
+            return new RefreshingCredentials(credentials, TimeUnit.SECONDS.toMillis(refresh.getLeadSeconds()),
+                    TimeUnit.SECONDS.toMillis(refresh.getJitterSeconds()),
+                    TimeUnit.SECONDS.toMillis(refresh.getRetryDelaySeconds()));
+        }
+
+        /**
+         * The credentials are required by the storage client before {@link GcpProperties} are bound, so the refresh
+         * part is bound here.
+         */
+        private static GcpProperties.CredentialsRefresh bindCredentialsRefreshProperties(Environment environment) {
+            GcpProperties.CredentialsRefresh properties = new GcpProperties.CredentialsRefresh();
+            if (environment instanceof ConfigurableEnvironment) {
+                new RelaxedDataBinder(properties, "google.cloud.credentials-refresh")
+                        .bind(new PropertySourcesPropertyValues(((ConfigurableEnvironment) environment).getPropertySources()));
+            }
+            return properties;
         }
     }
 
@@ -40,12 +103,14 @@ public class GcpAutoConfiguration {
 
         @ConditionalOnMissingBean
         @Bean
-        public Storage storage(GoogleCredentials googleCredentials, Environment environment) {
-            return StorageOptions.newBuilder()
+        public Storage storage(GoogleCredentials googleCredentials, Environment environment,
+                               GcpClientInitializer gcpClientInitializer) {
+            String projectId = environment.getProperty("google.cloud.project-id");
+            return gcpClientInitializer.create("storage", Storage.class, () -> StorageOptions.newBuilder()
                     .setCredentials(googleCredentials)
-                    .setProjectId(environment.getProperty("google.cloud.project-id"))
+                    .setProjectId(projectId)
                     .build()
-                    .getService();
+                    .getService());
         }
     }
 
@@ -55,8 +120,67 @@ public class GcpAutoConfiguration {
 
         @ConditionalOnMissingBean
         @Bean
-        public static StorageResourceLoaderBeanPostProcessor storageResourceLoaderBeanPostProcessor(Storage storage) {
-            return new StorageResourceLoaderBeanPostProcessor(storage);
+        public static StorageResourceLoaderBeanPostProcessor storageResourceLoaderBeanPostProcessor(Storage storage,
+                                                                                                   Environment environment) {
+            GcpProperties.Storage properties = bindStorageProperties(environment);
+            StorageResourceLoaderBeanPostProcessor processor = new StorageResourceLoaderBeanPostProcessor(storage);
+            processor.setListingParallelism(properties.getListing().getParallelism());
+            if (properties.getBucketCache().isEnabled()) {
+                processor.setBucketCacheTtlSeconds(properties.getBucketCache().getTtlSeconds());
+            }
+            processor.setReadChunkSize(properties.getReadChunkSize());
+            processor.setWriteChunkSize(properties.getWriteChunkSize());
+            processor.setAsyncThreads(properties.getAsync().getThreads());
+            processor.setAsyncVirtualThreads(properties.getAsync().isVirtualThreads());
+            GcpProperties.MetadataCache metadataCache = properties.getMetadataCache();
+            if (metadataCache.isEnabled()) {
+                processor.setMetadataCache(new StorageMetadataCache(metadataCache.getMaxEntries(),
+                        metadataCache.getTtlSeconds(), metadataCache.getNegativeTtlSeconds(), TimeUnit.SECONDS));
+            }
+            GcpProperties.LocalCache localCache = properties.getLocalCache();
+            if (localCache.isEnabled()) {
+                processor.setLocalFileCache(new LocalFileCache(Paths.get(localCache.getDirectory()),
+                        toBytes("local-cache.max-size-mb", localCache.getMaxSizeMb(), Long.MAX_VALUE)));
+            }
+            GcpProperties.RangedDownload rangedDownload = properties.getRangedDownload();
+            if (rangedDownload.isEnabled()) {
+                processor.setRangedDownloader(new RangedDownloader(
+                        toBytes("ranged-download.threshold-mb", rangedDownload.getThresholdMb(), Long.MAX_VALUE),
+                        (int) toBytes("ranged-download.range-size-mb", rangedDownload.getRangeSizeMb(), Integer.MAX_VALUE),
+                        rangedDownload.getParallelism(), rangedDownload.getMaxAttempts()));
+            }
+            GcpProperties.CompositeUpload compositeUpload = properties.getCompositeUpload();
+            if (compositeUpload.isEnabled()) {
+                processor.setCompositeUploader(new CompositeUploader(
+                        (int) toBytes("composite-upload.part-size-mb", compositeUpload.getPartSizeMb(), Integer.MAX_VALUE),
+                        compositeUpload.getParallelism(), compositeUpload.getMaxAttempts()));
+            }
+            return processor;
+        }
+
+        /**
+         * Converts a storage size property in megabytes to bytes, failing on sizes that are not positive or do not
+         * fit into {@code maxBytes}.
+         */
+        private static long toBytes(String property, long megabytes, long maxBytes) {
+            long maxMegabytes = maxBytes / (1024 * 1024);
+            if (megabytes < 1 || megabytes > maxMegabytes) {
+                throw new IllegalArgumentException("google.cloud.storage." + property + " must be between 1 and "
+                        + maxMegabytes + ", but is " + megabytes);
+            }
+            return megabytes * 1024 * 1024;
+        }
+
+        /**
+         * The post processor is created before {@link GcpProperties} are bound, so the storage part is bound here.
+         */
+        private static GcpProperties.Storage bindStorageProperties(Environment environment) {
+            GcpProperties.Storage properties = new GcpProperties.Storage();
+            if (environment instanceof ConfigurableEnvironment) {
+                new RelaxedDataBinder(properties, "google.cloud.storage")
+                        .bind(new PropertySourcesPropertyValues(((ConfigurableEnvironment) environment).getPropertySources()));
+            }
+            return properties;
         }
     }
 
@@ -70,22 +194,148 @@ public class GcpAutoConfiguration {
 
         private final GoogleCredentials googleCredentials;
 
+        /**
+         * Closed by the {@link GcpClientInitializer}, so a lazy client is not created just to be closed.
+         */
         @ConditionalOnMissingBean
-        @Bean
-        public DatabaseClient databaseClient() {
+        @Bean(destroyMethod = "")
+        public Spanner spanner(GcpClientInitializer gcpClientInitializer) {
+            GcpProperties.Spanner spanner = properties.getSpanner();
+            GcpProperties.SessionPool sessionPool = spanner.getSessionPool();
+            SessionPoolOptions.Builder sessionPoolOptions = SessionPoolOptions.newBuilder()
+                    .setMinSessions(sessionPool.getMinSessions())
+                    .setMaxSessions(sessionPool.getMaxSessions())
+                    .setWriteSessionsFraction(sessionPool.getWriteSessionsFraction())
+                    .setKeepAliveIntervalMinutes(sessionPool.getKeepAliveIntervalMinutes());
+            if (sessionPool.isFailIfPoolExhausted()) {
+                sessionPoolOptions.setFailIfPoolExhausted();
+            } else {
+                sessionPoolOptions.setBlockIfPoolExhausted();
+            }
             SpannerOptions options = SpannerOptions.newBuilder()
                     .setProjectId(properties.getProjectId())
-                    .setNumChannels(50)
-                    .setSessionPoolOption(SessionPoolOptions.newBuilder()
-                            .setBlockIfPoolExhausted()
-                            .setMaxSessions(5000)
-                            .build())
+                    .setNumChannels(spanner.getNumChannels())
+                    .setSessionPoolOption(sessionPoolOptions.build())
                     .setCredentials(googleCredentials)
                     .build();
-            Spanner spanner = options.getService();
+            return gcpClientInitializer.create("spanner", Spanner.class, options::getService, Spanner::close);
+        }
+
+        @ConditionalOnMissingBean
+        @Bean
+        public DatabaseClient databaseClient(Spanner spanner, GcpClientInitializer gcpClientInitializer) {
             DatabaseId databaseId = DatabaseId.of(properties.getProjectId(), properties.getSpanner().getInstance(),
                     properties.getSpanner().getDatabase());
-            return spanner.getDatabaseClient(databaseId);
+            return gcpClientInitializer.create("spanner-database-client", DatabaseClient.class,
+                    () -> spanner.getDatabaseClient(databaseId));
+        }
+
+        @ConditionalOnMissingBean
+        @Bean
+        public SpannerReader spannerReader(DatabaseClient databaseClient) {
+            return new SpannerReader(databaseClient, defaultReadBound());
+        }
+
+        /**
+         * Batch reads use the default staleness of the spanner reader.
+         */
+        @ConditionalOnProperty("google.cloud.spanner.key-loader.enabled")
+        @ConditionalOnMissingBean
+        @Bean(destroyMethod = "shutdown")
+        public SpannerKeyLoaderFactory spannerKeyLoaderFactory(DatabaseClient databaseClient) {
+            GcpProperties.KeyLoader keyLoader = properties.getSpanner().getKeyLoader();
+            return new SpannerKeyLoaderFactory(databaseClient, defaultReadBound(), keyLoader.getWindowMicros(),
+                    keyLoader.getMaxBatchSize(), keyLoader.getThreads());
+        }
+
+        private TimestampBound defaultReadBound() {
+            GcpProperties.Read read = properties.getSpanner().getRead();
+            switch (read.getStaleness()) {
+                case EXACT:
+                    return TimestampBound.ofExactStaleness(read.getStalenessMillis(), TimeUnit.MILLISECONDS);
+                case MAX:
+                    return TimestampBound.ofMaxStaleness(read.getStalenessMillis(), TimeUnit.MILLISECONDS);
+                default:
+                    return TimestampBound.strong();
+            }
+        }
+
+        @ConditionalOnProperty("google.cloud.spanner.warm-up.enabled")
+        @ConditionalOnMissingBean
+        @Bean
+        public SpannerWarmUp spannerWarmUp(DatabaseClient databaseClient) {
+            GcpProperties.WarmUp warmUp = properties.getSpanner().getWarmUp();
+            int sessions = warmUp.getSessions() > 0 ? warmUp.getSessions()
+                    : Math.max(1, properties.getSpanner().getSessionPool().getMinSessions());
+            return new SpannerWarmUp(databaseClient, sessions, warmUp.getParallelism(), warmUp.getTimeoutMillis());
+        }
+
+        @ConditionalOnProperty("google.cloud.spanner.partitioned-read.enabled")
+        @ConditionalOnMissingBean
+        @Bean(destroyMethod = "shutdown")
+        public SpannerPartitionedReader spannerPartitionedReader(DatabaseClient databaseClient) {
+            int parallelism = properties.getSpanner().getPartitionedRead().getParallelism();
+            return new SpannerPartitionedReader(databaseClient,
+                    parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        }
+
+        @ConditionalOnProperty("google.cloud.spanner.batch-write.enabled")
+        @ConditionalOnMissingBean
+        @Bean(destroyMethod = "shutdown")
+        public SpannerBatchWriter spannerBatchWriter(DatabaseClient databaseClient) {
+            GcpProperties.BatchWrite batchWrite = properties.getSpanner().getBatchWrite();
+            return new SpannerBatchWriter(databaseClient, batchWrite.getMaxCells(), batchWrite.getMaxBytes(),
+                    batchWrite.getParallelism(), batchWrite.getMaxAttempts());
+        }
+    }
+
+    @ConditionalOnClass({MeterRegistry.class, Storage.class})
+    @ConditionalOnProperty({"google.cloud.project-id", "google.cloud.credentials-resource"})
+    @Configuration
+    public static class ForStorageMetrics {
+
+        @ConditionalOnMissingBean
+        @Bean
+        public StorageMetrics storageMetrics(StorageResourceLoaderBeanPostProcessor storageResourceLoaderBeanPostProcessor) {
+            return new StorageMetrics(storageResourceLoaderBeanPostProcessor);
+        }
+    }
+
+    @ConditionalOnClass({MeterRegistry.class, DatabaseClient.class})
+    @ConditionalOnProperty({"google.cloud.credentials-resource", "google.cloud.project-id", "google.cloud.spanner.instance", "google.cloud.spanner.database"})
+    @Configuration
+    public static class ForSpannerMetrics {
+
+        @ConditionalOnMissingBean
+        @Bean
+        public SpannerMetrics spannerMetrics(ObjectProvider<SpannerBatchWriter> spannerBatchWriter,
+                                             ObjectProvider<SpannerReader> spannerReader,
+                                             ObjectProvider<SpannerPartitionedReader> spannerPartitionedReader) {
+            return new SpannerMetrics(spannerBatchWriter.getIfAvailable(), spannerReader.getIfAvailable(),
+                    spannerPartitionedReader.getIfAvailable());
+        }
+    }
+
+    @ConditionalOnClass(MeterRegistry.class)
+    @ConditionalOnProperty("google.cloud.credentials-resource")
+    @Configuration
+    public static class ForCredentialsRefreshMetrics {
+
+        @ConditionalOnMissingBean
+        @Bean
+        public CredentialsRefreshMetrics credentialsRefreshMetrics(GoogleCredentials googleCredentials) {
+            return new CredentialsRefreshMetrics(googleCredentials);
+        }
+    }
+
+    @ConditionalOnClass(MeterRegistry.class)
+    @Configuration
+    public static class ForClientInitializationMetrics {
+
+        @ConditionalOnMissingBean
+        @Bean
+        public ClientInitializationMetrics clientInitializationMetrics(GcpClientInitializer gcpClientInitializer) {
+            return new ClientInitializationMetrics(gcpClientInitializer);
         }
     }
 }
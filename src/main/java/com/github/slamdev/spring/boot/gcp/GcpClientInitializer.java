@@ -0,0 +1,225 @@
+package com.github.slamdev.spring.boot.gcp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.TargetSource;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.target.AbstractLazyCreationTargetSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Creates the Google Cloud clients of the starter according to the {@link GcpProperties.Initialization} mode:
+ * eagerly while the context refreshes, lazily behind a proxy on first use, or in the background behind a proxy that
+ * waits for the client on first use. The time every client took to initialize is logged and recorded.
+ */
+public class GcpClientInitializer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GcpClientInitializer.class);
+
+    private final GcpProperties.Initialization mode;
+    private final Map<String, Long> initializationNanos = new LinkedHashMap<>();
+    private final List<Runnable> closers = new ArrayList<>();
+    private ExecutorService executor;
+    private Listener listener;
+
+    public GcpClientInitializer(GcpProperties.Initialization mode) {
+        this.mode = mode;
+    }
+
+    public GcpProperties.Initialization getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the client created by the factory, or a proxy of the client interface creating it later.
+     *
+     * @param name   The client name used in logs and metrics
+     * @param closer Releases the client on shutdown, only called when the client was created
+     */
+    public <T> T create(String name, Class<T> type, Supplier<T> factory, Consumer<T> closer) {
+        switch (mode) {
+            case LAZY:
+                LazyTargetSource<T> lazy = new LazyTargetSource<>(name, type, factory);
+                registerCloser(() -> {
+                    if (lazy.isInitialized()) {
+                        closer.accept(lazy.getClient());
+                    }
+                });
+                return proxy(type, lazy);
+            case BACKGROUND:
+                CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> initialize(name, factory), executor());
+                registerCloser(() -> future.thenAccept(closer));
+                return proxy(type, new FutureTargetSource(type, future));
+            default:
+                T client = initialize(name, factory);
+                registerCloser(() -> closer.accept(client));
+                return client;
+        }
+    }
+
+    public <T> T create(String name, Class<T> type, Supplier<T> factory) {
+        return create(name, type, factory, client -> {
+        });
+    }
+
+    /**
+     * Returns the initialization time of every client created so far.
+     */
+    public synchronized Map<String, Long> getInitializationNanos() {
+        return new LinkedHashMap<>(initializationNanos);
+    }
+
+    /**
+     * Set the listener notified about every client initialization, including the ones completed before.
+     */
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+        initializationNanos.forEach(listener::onInitialized);
+    }
+
+    @Override
+    public void destroy() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            toRun = new ArrayList<>(closers);
+            closers.clear();
+        }
+        for (Runnable closer : toRun) {
+            try {
+                closer.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to close google cloud client", e);
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> T initialize(String name, Supplier<T> factory) {
+        long start = System.nanoTime();
+        T client = factory.get();
+        long duration = System.nanoTime() - start;
+        LOGGER.info("Initialized {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(duration));
+        Listener current;
+        synchronized (this) {
+            initializationNanos.put(name, duration);
+            current = listener;
+        }
+        if (current != null) {
+            current.onInitialized(name, duration);
+        }
+        return client;
+    }
+
+    private synchronized void registerCloser(Runnable closer) {
+        closers.add(closer);
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcp-init-");
+            threadFactory.setDaemon(true);
+            executor = Executors.newCachedThreadPool(threadFactory);
+        }
+        return executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, TargetSource targetSource) {
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.addInterface(type);
+        proxyFactory.setTargetSource(targetSource);
+        return (T) proxyFactory.getProxy(type.getClassLoader());
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+
+        void onInitialized(String client, long durationNanos);
+    }
+
+    private final class LazyTargetSource<T> extends AbstractLazyCreationTargetSource {
+
+        private final String name;
+        private final Class<T> type;
+        private final Supplier<T> factory;
+
+        private LazyTargetSource(String name, Class<T> type, Supplier<T> factory) {
+            this.name = name;
+            this.type = type;
+            this.factory = factory;
+        }
+
+        @Override
+        public synchronized Class<?> getTargetClass() {
+            return type;
+        }
+
+        @Override
+        protected Object createObject() {
+            return initialize(name, factory);
+        }
+
+        private T getClient() {
+            try {
+                return type.cast(getTarget());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to initialize " + name, e);
+            }
+        }
+    }
+
+    private static final class FutureTargetSource implements TargetSource {
+
+        private final Class<?> type;
+        private final CompletableFuture<?> target;
+
+        private FutureTargetSource(Class<?> type, CompletableFuture<?> target) {
+            this.type = type;
+            this.target = target;
+        }
+
+        @Override
+        public Class<?> getTargetClass() {
+            return type;
+        }
+
+        @Override
+        public boolean isStatic() {
+            return false;
+        }
+
+        @Override
+        public Object getTarget() {
+            try {
+                return target.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void releaseTarget(Object target) {
+            // The target is shared
+        }
+    }
+}
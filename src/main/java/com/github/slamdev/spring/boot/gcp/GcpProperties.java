@@ -1,5 +1,8 @@
 package com.github.slamdev.spring.boot.gcp;
 
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerBatchWriter;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerKeyLoaderFactory;
+import com.github.slamdev.spring.boot.gcp.storage.resource.StorageResourceLoaderBeanPostProcessor;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.core.io.Resource;
@@ -22,10 +25,59 @@ public class GcpProperties {
      */
     private String projectId;
 
+    /**
+     * When the storage and spanner clients are created
+     */
+    private Initialization initialization = Initialization.EAGER;
+
+    private CredentialsRefresh credentialsRefresh = new CredentialsRefresh();
+
     private Spanner spanner;
 
     private Storage storage;
 
+    public enum Initialization {
+
+        /**
+         * While the application context refreshes
+         */
+        EAGER,
+
+        /**
+         * On first use, through a proxy of the client interface
+         */
+        LAZY,
+
+        /**
+         * In parallel on background threads while the application context refreshes, first use waits for the client
+         */
+        BACKGROUND
+    }
+
+    @Data
+    public static class CredentialsRefresh {
+
+        /**
+         * Whether access tokens are renewed on a background thread ahead of their expiry
+         */
+        private boolean enabled;
+
+        /**
+         * How long before expiry of the current token a new one is fetched
+         */
+        private long leadSeconds = 600;
+
+        /**
+         * Upper bound of the random time subtracted from every refresh delay
+         */
+        private long jitterSeconds = 60;
+
+        /**
+         * Delay before a failed refresh is retried
+         */
+        private long retryDelaySeconds = 10;
+    }
+
     @Data
     public static class Spanner {
 
@@ -38,9 +90,321 @@ public class GcpProperties {
          * Spanner database name
          */
         private String database;
+
+        /**
+         * Number of gRPC channels opened to Spanner
+         */
+        private int numChannels = 50;
+
+        private SessionPool sessionPool = new SessionPool();
+
+        private WarmUp warmUp = new WarmUp();
+
+        private BatchWrite batchWrite = new BatchWrite();
+
+        private Read read = new Read();
+
+        private PartitionedRead partitionedRead = new PartitionedRead();
+
+        private KeyLoader keyLoader = new KeyLoader();
+    }
+
+    @Data
+    public static class KeyLoader {
+
+        /**
+         * Whether the spanner key loader factory is created
+         */
+        private boolean enabled;
+
+        /**
+         * Time in microseconds concurrent key lookups are collected into one read
+         */
+        private long windowMicros = SpannerKeyLoaderFactory.DEFAULT_WINDOW_MICROS;
+
+        /**
+         * Number of distinct keys that makes a batch read before its window closes
+         */
+        private int maxBatchSize = SpannerKeyLoaderFactory.DEFAULT_MAX_BATCH_SIZE;
+
+        /**
+         * Maximum number of batch reads running concurrently
+         */
+        private int threads = SpannerKeyLoaderFactory.DEFAULT_THREADS;
+    }
+
+    @Data
+    public static class PartitionedRead {
+
+        /**
+         * Whether the spanner partitioned reader is created
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum number of partitions read concurrently, the number of available processors when 0
+         */
+        private int parallelism;
+    }
+
+    @Data
+    public static class Read {
+
+        /**
+         * Default staleness of reads made through the spanner reader
+         */
+        private Staleness staleness = Staleness.STRONG;
+
+        /**
+         * Staleness in milliseconds of exact and max staleness reads
+         */
+        private long stalenessMillis = 10_000;
+    }
+
+    public enum Staleness {
+        STRONG, EXACT, MAX
+    }
+
+    @Data
+    public static class SessionPool {
+
+        /**
+         * Number of sessions the pool creates on startup and keeps open
+         */
+        private int minSessions;
+
+        /**
+         * Maximum number of sessions of the pool
+         */
+        private int maxSessions = 5000;
+
+        /**
+         * Fraction of sessions prepared for read-write transactions
+         */
+        private float writeSessionsFraction = 0.2f;
+
+        /**
+         * Interval in minutes at which idle sessions are pinged to keep them alive
+         */
+        private int keepAliveIntervalMinutes = 30;
+
+        /**
+         * Whether a session request fails instead of waiting when the pool is exhausted
+         */
+        private boolean failIfPoolExhausted;
+    }
+
+    @Data
+    public static class WarmUp {
+
+        /**
+         * Whether trivial queries establish sessions and channels before the application reports ready
+         */
+        private boolean enabled;
+
+        /**
+         * Number of sessions warmed up and held at the same time, the min sessions of the pool when 0
+         */
+        private int sessions;
+
+        /**
+         * Maximum number of warm-up queries running concurrently
+         */
+        private int parallelism = 16;
+
+        /**
+         * Maximum time in milliseconds to wait for the warm-up
+         */
+        private long timeoutMillis = 30_000;
+    }
+
+    @Data
+    public static class BatchWrite {
+
+        /**
+         * Whether the spanner batch writer is created
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum estimated number of mutated cells per commit
+         */
+        private int maxCells = SpannerBatchWriter.DEFAULT_MAX_CELLS;
+
+        /**
+         * Maximum estimated number of mutated bytes per commit
+         */
+        private long maxBytes = SpannerBatchWriter.DEFAULT_MAX_BYTES;
+
+        /**
+         * Maximum number of commits running concurrently
+         */
+        private int parallelism = SpannerBatchWriter.DEFAULT_PARALLELISM;
+
+        /**
+         * Maximum number of attempts per commit when it is aborted, or fails with a retryable error and has no plain inserts
+         */
+        private int maxAttempts = SpannerBatchWriter.DEFAULT_MAX_ATTEMPTS;
     }
 
     @Data
     public static class Storage {
+
+        /**
+         * Number of bytes requested per read call of a gcs resource, 0 for the client library default
+         */
+        private int readChunkSize;
+
+        /**
+         * Number of bytes uploaded per request when writing a gcs resource, 0 for the client library default
+         */
+        private int writeChunkSize;
+
+        private Listing listing = new Listing();
+
+        private BucketCache bucketCache = new BucketCache();
+
+        private MetadataCache metadataCache = new MetadataCache();
+
+        private LocalCache localCache = new LocalCache();
+
+        private RangedDownload rangedDownload = new RangedDownload();
+
+        private CompositeUpload compositeUpload = new CompositeUpload();
+
+        private Async async = new Async();
+    }
+
+    @Data
+    public static class Listing {
+
+        /**
+         * Maximum number of concurrent list calls used to resolve gcs location patterns
+         */
+        private int parallelism = StorageResourceLoaderBeanPostProcessor.DEFAULT_LISTING_PARALLELISM;
+    }
+
+    @Data
+    public static class BucketCache {
+
+        /**
+         * Whether bucket names used to resolve bucket wildcards are cached
+         */
+        private boolean enabled;
+
+        /**
+         * Time to live in seconds of cached bucket names
+         */
+        private long ttlSeconds = 300;
+    }
+
+    @Data
+    public static class MetadataCache {
+
+        /**
+         * Whether object metadata is cached across gcs resources
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum number of cached objects
+         */
+        private int maxEntries = 10_000;
+
+        /**
+         * Time to live in seconds of the cached metadata of existing objects
+         */
+        private long ttlSeconds = 60;
+
+        /**
+         * Time to live in seconds of cached not found responses
+         */
+        private long negativeTtlSeconds = 10;
+    }
+
+    @Data
+    public static class LocalCache {
+
+        /**
+         * Whether object contents are cached in a local directory
+         */
+        private boolean enabled;
+
+        /**
+         * Local cache directory, may be shared by several applications
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/gcs-cache";
+
+        /**
+         * Maximum size in megabytes of the local cache directory
+         */
+        private long maxSizeMb = 1024;
+    }
+
+    @Data
+    public static class RangedDownload {
+
+        /**
+         * Whether large objects are downloaded as several byte ranges in parallel
+         */
+        private boolean enabled;
+
+        /**
+         * Minimum object size in megabytes for a ranged download
+         */
+        private long thresholdMb = 64;
+
+        /**
+         * Size in megabytes of a single byte range
+         */
+        private int rangeSizeMb = 16;
+
+        /**
+         * Maximum number of byte ranges fetched concurrently
+         */
+        private int parallelism = 4;
+
+        /**
+         * Maximum number of attempts per byte range
+         */
+        private int maxAttempts = 3;
+    }
+
+    @Data
+    public static class CompositeUpload {
+
+        /**
+         * Whether writes are uploaded as parallel composite uploads, composite objects have no MD5 hash
+         */
+        private boolean enabled;
+
+        /**
+         * Size in megabytes of a single part, smaller writes are uploaded directly
+         */
+        private int partSizeMb = 32;
+
+        /**
+         * Maximum number of parts uploaded concurrently
+         */
+        private int parallelism = 4;
+
+        /**
+         * Maximum number of attempts per part upload
+         */
+        private int maxAttempts = 3;
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * Number of threads running asynchronous gcs resource operations
+         */
+        private int threads = StorageResourceLoaderBeanPostProcessor.DEFAULT_ASYNC_THREADS;
+
+        /**
+         * Whether asynchronous gcs resource operations run on virtual threads when the JDK provides them
+         */
+        private boolean virtualThreads = true;
     }
 }
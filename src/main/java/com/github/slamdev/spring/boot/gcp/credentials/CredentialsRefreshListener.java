@@ -0,0 +1,14 @@
+package com.github.slamdev.spring.boot.gcp.credentials;
+
+/**
+ * Receives the outcome of access token refreshes, e.g. to publish them as metrics. Called on the thread refreshing
+ * the token, so implementations must be thread safe and fast.
+ */
+public interface CredentialsRefreshListener {
+
+    /**
+     * Called when a refresh completes, whether it ran ahead of expiry or on demand.
+     */
+    default void onRefresh(long durationNanos, boolean success) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.github.slamdev.spring.boot.gcp.credentials;
+
+import com.google.auth.RequestMetadataCallback;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credentials that renew the access token of the wrapped credentials on a background thread ahead of its expiry, so
+ * requests never wait for a token. The first token is fetched on start, every next one {@code lead} before the
+ * current one expires, minus a random {@code jitter} so several instances do not refresh at the same moment. Failed
+ * refreshes are retried after {@code retryDelay}.
+ * <p>
+ * Requests read the prefetched token without locking. Only when it is missing or about to expire, e.g. while
+ * refreshes keep failing, they fall back to refreshing on demand like plain credentials do.
+ * <p>
+ * Serialized as the wrapped credentials, the background refresh is not carried over.
+ */
+public class RefreshingCredentials extends GoogleCredentials implements InitializingBean, DisposableBean {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshingCredentials.class);
+
+    /**
+     * Prefetched tokens closer to their expiry are not served anymore.
+     */
+    private static final long MIN_VALIDITY_MILLIS = 60_000;
+
+    private static final long MIN_DELAY_MILLIS = 1_000;
+
+    private final GoogleCredentials delegate;
+    private final long leadMillis;
+    private final long jitterMillis;
+    private final long retryDelayMillis;
+    private final ScheduledExecutorService scheduler;
+    private volatile Token token;
+    private volatile CredentialsRefreshListener listener;
+
+    /**
+     * @param delegate The credentials fetching tokens, must not require scopes
+     */
+    public RefreshingCredentials(GoogleCredentials delegate, long leadMillis, long jitterMillis, long retryDelayMillis) {
+        if (delegate.createScopedRequired()) {
+            throw new IllegalArgumentException("Credentials must be scoped before they are wrapped");
+        }
+        if (leadMillis < 0 || jitterMillis < 0 || retryDelayMillis < 1) {
+            throw new IllegalArgumentException("Lead and jitter must not be negative, retry delay must be positive");
+        }
+        this.delegate = delegate;
+        this.leadMillis = leadMillis;
+        this.jitterMillis = jitterMillis;
+        this.retryDelayMillis = retryDelayMillis;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcp-credentials-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Set the listener receiving the duration and outcome of every refresh. Default is no listener.
+     */
+    public void setListener(CredentialsRefreshListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the expiration time of the prefetched token, or null when no token was fetched yet.
+     */
+    public Date getExpirationTime() {
+        Token current = token;
+        return current == null ? null : current.accessToken.getExpirationTime();
+    }
+
+    /**
+     * Fetches the first token in the background and schedules the next refreshes.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.execute(this::refreshAhead);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Map<String, List<String>> getRequestMetadata(URI uri) throws IOException {
+        Token current = token;
+        if (isValid(current)) {
+            return current.metadata;
+        }
+        return super.getRequestMetadata(uri);
+    }
+
+    @Override
+    public void getRequestMetadata(URI uri, Executor executor, RequestMetadataCallback callback) {
+        Token current = token;
+        if (isValid(current)) {
+            callback.onSuccess(current.metadata);
+            return;
+        }
+        super.getRequestMetadata(uri, executor, callback);
+    }
+
+    /**
+     * Called by the on demand path of the superclass, the fetched token is shared with the prefetched one.
+     */
+    @Override
+    public AccessToken refreshAccessToken() throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            AccessToken accessToken = delegate.refreshAccessToken();
+            token = new Token(accessToken);
+            success = true;
+            return accessToken;
+        } finally {
+            CredentialsRefreshListener current = listener;
+            if (current != null) {
+                current.onRefresh(System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private Object writeReplace() {
+        return delegate;
+    }
+
+    private void refreshAhead() {
+        long delay;
+        try {
+            delay = nextRefreshDelay(refreshAccessToken());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to refresh google cloud access token, retrying in {} ms", retryDelayMillis, e);
+            delay = retryDelayMillis;
+        }
+        if (delay >= 0 && !scheduler.isShutdown()) {
+            scheduler.schedule(this::refreshAhead, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns a negative delay for tokens without an expiration time, they never have to be refreshed.
+     */
+    private long nextRefreshDelay(AccessToken accessToken) {
+        Date expiration = accessToken.getExpirationTime();
+        if (expiration == null) {
+            return -1;
+        }
+        long jitter = jitterMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        long delay = expiration.getTime() - System.currentTimeMillis() - leadMillis - jitter;
+        return Math.max(MIN_DELAY_MILLIS, delay);
+    }
+
+    private static boolean isValid(Token token) {
+        if (token == null) {
+            return false;
+        }
+        Date expiration = token.accessToken.getExpirationTime();
+        return expiration == null || expiration.getTime() - System.currentTimeMillis() > MIN_VALIDITY_MILLIS;
+    }
+
+    private static final class Token {
+
+        private final AccessToken accessToken;
+        private final Map<String, List<String>> metadata;
+
+        private Token(AccessToken accessToken) {
+            this.accessToken = accessToken;
+            this.metadata = Collections.singletonMap("Authorization",
+                    Collections.singletonList("Bearer " + accessToken.getTokenValue()));
+        }
+    }
+}
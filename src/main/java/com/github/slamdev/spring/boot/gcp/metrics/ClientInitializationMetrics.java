@@ -0,0 +1,39 @@
+package com.github.slamdev.spring.boot.gcp.metrics;
+
+import com.github.slamdev.spring.boot.gcp.GcpClientInitializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Publishes the time every Google Cloud client took to initialize, tagged with the client name.
+ */
+public class ClientInitializationMetrics implements MeterBinder, GcpClientInitializer.Listener {
+
+    private final GcpClientInitializer initializer;
+    private MeterRegistry registry;
+
+    public ClientInitializationMetrics(GcpClientInitializer initializer) {
+        this.initializer = initializer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        initializer.setListener(this);
+    }
+
+    @Override
+    public void onInitialized(String client, long durationNanos) {
+        Timer.builder("gcp.client.initialization")
+                .description("Initialization of google cloud clients")
+                .tag("client", client)
+                .tag("mode", initializer.getMode().name().toLowerCase(ENGLISH))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
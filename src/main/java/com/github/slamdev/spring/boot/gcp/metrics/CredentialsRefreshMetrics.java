@@ -0,0 +1,59 @@
+package com.github.slamdev.spring.boot.gcp.metrics;
+
+import com.github.slamdev.spring.boot.gcp.credentials.CredentialsRefreshListener;
+import com.github.slamdev.spring.boot.gcp.credentials.RefreshingCredentials;
+import com.google.auth.oauth2.GoogleCredentials;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes access token refreshes and the remaining validity of the current token. Binds nothing unless the
+ * credentials are {@link RefreshingCredentials}.
+ */
+public class CredentialsRefreshMetrics implements MeterBinder, CredentialsRefreshListener {
+
+    private final GoogleCredentials credentials;
+    private Timer successfulRefreshes;
+    private Timer failedRefreshes;
+
+    public CredentialsRefreshMetrics(GoogleCredentials credentials) {
+        this.credentials = credentials;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(credentials instanceof RefreshingCredentials)) {
+            return;
+        }
+        RefreshingCredentials refreshing = (RefreshingCredentials) credentials;
+        successfulRefreshes = refreshes(registry, "success");
+        failedRefreshes = refreshes(registry, "failure");
+        Gauge.builder("gcp.credentials.expiration", refreshing, CredentialsRefreshMetrics::secondsUntilExpiration)
+                .description("Seconds until the current access token expires")
+                .baseUnit("seconds")
+                .register(registry);
+        refreshing.setListener(this);
+    }
+
+    private static Timer refreshes(MeterRegistry registry, String outcome) {
+        return Timer.builder("gcp.credentials.refresh")
+                .description("Access token refreshes")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static double secondsUntilExpiration(RefreshingCredentials credentials) {
+        Date expiration = credentials.getExpirationTime();
+        return expiration == null ? Double.NaN : (expiration.getTime() - System.currentTimeMillis()) / 1000.0;
+    }
+
+    @Override
+    public void onRefresh(long durationNanos, boolean success) {
+        (success ? successfulRefreshes : failedRefreshes).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
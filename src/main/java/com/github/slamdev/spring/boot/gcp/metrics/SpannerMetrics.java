@@ -0,0 +1,96 @@
+package com.github.slamdev.spring.boot.gcp.metrics;
+
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerBatchWriter;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerHelper;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerMetricsListener;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerPartitionedReader;
+import com.github.slamdev.spring.boot.gcp.spanner.SpannerReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes commits of the {@link SpannerBatchWriter}, and the rows mapped by the {@link SpannerReader} and the
+ * {@link SpannerPartitionedReader}. Listeners are set on these instances only, so several application contexts never
+ * report into each other's registry. The static {@link SpannerHelper} mapping and write helpers report when this bean
+ * is passed to them as the listener.
+ */
+public class SpannerMetrics implements MeterBinder, SpannerMetricsListener {
+
+    private final SpannerBatchWriter batchWriter;
+    private final SpannerReader reader;
+    private final SpannerPartitionedReader partitionedReader;
+    private Timer successfulCommits;
+    private Timer failedCommits;
+    private Counter mutations;
+    private Timer mappings;
+    private Counter mappedRows;
+
+    /**
+     * @param batchWriter       The writer to measure, may be null
+     * @param reader            The reader to measure, may be null
+     * @param partitionedReader The partitioned reader to measure, may be null
+     */
+    public SpannerMetrics(SpannerBatchWriter batchWriter, SpannerReader reader,
+                          SpannerPartitionedReader partitionedReader) {
+        this.batchWriter = batchWriter;
+        this.reader = reader;
+        this.partitionedReader = partitionedReader;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        successfulCommits = commits(registry, "success");
+        failedCommits = commits(registry, "failure");
+        mutations = Counter.builder("spanner.commit.mutations")
+                .description("Mutations written by batch commits")
+                .register(registry);
+        mappings = Timer.builder("spanner.mapping")
+                .description("Queries and reads mapped by the spanner readers and helpers")
+                .register(registry);
+        mappedRows = Counter.builder("spanner.mapping.rows")
+                .description("Rows mapped by the spanner readers and helpers")
+                .register(registry);
+        if (batchWriter != null) {
+            batchWriter.setMetricsListener(this);
+        }
+        if (reader != null) {
+            reader.setMetricsListener(this);
+        }
+        if (partitionedReader != null) {
+            partitionedReader.setMetricsListener(this);
+        }
+    }
+
+    private static Timer commits(MeterRegistry registry, String outcome) {
+        return Timer.builder("spanner.commit")
+                .description("Batch commits, those of the batch writer including their retries")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public void onCommit(int mutations, long durationNanos, boolean success) {
+        if (successfulCommits == null) {
+            // Not bound to a registry yet
+            return;
+        }
+        (success ? successfulCommits : failedCommits).record(durationNanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            this.mutations.increment(mutations);
+        }
+    }
+
+    @Override
+    public void onMapped(long rows, long durationNanos) {
+        if (mappings == null) {
+            // Not bound to a registry yet
+            return;
+        }
+        mappings.record(durationNanos, TimeUnit.NANOSECONDS);
+        mappedRows.increment(rows);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.slamdev.spring.boot.gcp.metrics;
+
+import com.github.slamdev.spring.boot.gcp.storage.resource.StorageMetadataCache;
+import com.github.slamdev.spring.boot.gcp.storage.resource.StorageMetricsListener;
+import com.github.slamdev.spring.boot.gcp.storage.resource.StorageResourceLoaderBeanPostProcessor;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes reads, writes, failures and pattern resolutions of gcs resources, and the metadata cache statistics.
+ */
+public class StorageMetrics implements MeterBinder, StorageMetricsListener {
+
+    private final StorageResourceLoaderBeanPostProcessor processor;
+    private MeterRegistry registry;
+    private Timer reads;
+    private DistributionSummary readBytes;
+    private Timer writes;
+    private DistributionSummary writeBytes;
+    private Timer resolutions;
+    private DistributionSummary resolutionListCalls;
+
+    public StorageMetrics(StorageResourceLoaderBeanPostProcessor processor) {
+        this.processor = processor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        reads = Timer.builder("gcs.read")
+                .description("Reads of object contents")
+                .register(registry);
+        readBytes = DistributionSummary.builder("gcs.read.bytes")
+                .description("Bytes read per object")
+                .baseUnit("bytes")
+                .register(registry);
+        writes = Timer.builder("gcs.write")
+                .description("Writes of object contents")
+                .register(registry);
+        writeBytes = DistributionSummary.builder("gcs.write.bytes")
+                .description("Bytes written per object")
+                .baseUnit("bytes")
+                .register(registry);
+        resolutions = Timer.builder("gcs.resolve")
+                .description("Resolutions of gcs location patterns")
+                .register(registry);
+        resolutionListCalls = DistributionSummary.builder("gcs.resolve.list.calls")
+                .description("List calls per resolution of a gcs location pattern")
+                .register(registry);
+        StorageMetadataCache metadataCache = processor.getMetadataCache();
+        if (metadataCache != null) {
+            FunctionCounter.builder("gcs.metadata.cache.hits", metadataCache, StorageMetadataCache::getHitCount)
+                    .description("Object metadata served from the cache")
+                    .register(registry);
+            FunctionCounter.builder("gcs.metadata.cache.misses", metadataCache, StorageMetadataCache::getMissCount)
+                    .description("Object metadata fetched from the storage")
+                    .register(registry);
+            Gauge.builder("gcs.metadata.cache.size", metadataCache, StorageMetadataCache::size)
+                    .description("Number of cached object metadata entries")
+                    .register(registry);
+        }
+        processor.setMetricsListener(this);
+    }
+
+    @Override
+    public void onRead(long bytes, long durationNanos) {
+        reads.record(durationNanos, TimeUnit.NANOSECONDS);
+        readBytes.record(bytes);
+    }
+
+    @Override
+    public void onWrite(long bytes, long durationNanos) {
+        writes.record(durationNanos, TimeUnit.NANOSECONDS);
+        writeBytes.record(bytes);
+    }
+
+    @Override
+    public void onError(String operation, int code) {
+        registry.counter("gcs.errors", "operation", operation, "code", String.valueOf(code)).increment();
+    }
+
+    @Override
+    public void onResolve(int listCalls, long durationNanos) {
+        resolutions.record(durationNanos, TimeUnit.NANOSECONDS);
+        resolutionListCalls.record(listCalls);
+    }
+}
@@ -0,0 +1,276 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.StructReader;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Maps rows to instances of a bean class through its default constructor and setters. Columns are matched to
+ * properties ignoring case and underscores, so {@code user_id} populates {@code userId}. The constructor and setters
+ * are bound to functional interfaces with {@link LambdaMetafactory} once per class, and columns are bound to
+ * setters once per row type, so mapping a row does not use reflection. Null columns leave the property untouched.
+ */
+final class BeanRowMapper<T> {
+
+    private static final Map<Class<?>, BeanRowMapper<?>> CACHE = new ConcurrentReferenceHashMap<>();
+
+    private final Class<T> beanClass;
+    private final Supplier<T> constructor;
+    private final Map<String, Property> properties = new HashMap<>();
+
+    private BeanRowMapper(Class<T> beanClass) {
+        this.beanClass = beanClass;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        this.constructor = bindConstructor(lookup, beanClass);
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(beanClass)) {
+            Method setter = descriptor.getWriteMethod();
+            if (setter != null) {
+                properties.put(normalize(descriptor.getName()),
+                        new Property(descriptor.getName(), descriptor.getPropertyType(), bindSetter(lookup, setter)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> BeanRowMapper<T> of(Class<T> beanClass) {
+        return (BeanRowMapper<T>) CACHE.computeIfAbsent(beanClass, BeanRowMapper::new);
+    }
+
+    /**
+     * Returns the mapper for rows of the given type.
+     */
+    Function<StructReader, T> bind(ColumnIndex columns) {
+        List<StructField> fields = columns.getType().getStructFields();
+        List<ColumnBinding> bindings = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            StructField field = fields.get(i);
+            Property property = properties.get(normalize(field.getName()));
+            if (property != null && columns.indexOf(field.getName()) == i) {
+                bindings.add(new ColumnBinding(i, property.setter, reader(field, property)));
+            }
+        }
+        ColumnBinding[] columnBindings = bindings.toArray(new ColumnBinding[0]);
+        return row -> {
+            T bean = constructor.get();
+            for (ColumnBinding binding : columnBindings) {
+                if (!row.isNull(binding.index)) {
+                    binding.setter.accept(bean, binding.reader.apply(row, binding.index));
+                }
+            }
+            return bean;
+        };
+    }
+
+    private ColumnReader reader(StructField field, Property property) {
+        Class<?> target = ClassUtils.resolvePrimitiveIfNecessary(property.type);
+        Type type = field.getType();
+        ColumnReader reader = columnReader(type);
+        Class<?> source = columnClass(type);
+        if (reader == null || source == null) {
+            throw unsupported(field, property);
+        }
+        if (target.isAssignableFrom(source)) {
+            return reader;
+        }
+        if (source == Long.class && target == Integer.class) {
+            return (row, index) -> Math.toIntExact(row.getLong(index));
+        }
+        if (source == Long.class && target == Short.class) {
+            return (row, index) -> (short) row.getLong(index);
+        }
+        if (source == Double.class && target == Float.class) {
+            return (row, index) -> (float) row.getDouble(index);
+        }
+        if (source == Timestamp.class && target == Date.class) {
+            return (row, index) -> row.getTimestamp(index).toSqlTimestamp();
+        }
+        if (source == Timestamp.class && target == Instant.class) {
+            return (row, index) -> {
+                Timestamp timestamp = row.getTimestamp(index);
+                return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+            };
+        }
+        throw unsupported(field, property);
+    }
+
+    private IllegalArgumentException unsupported(StructField field, Property property) {
+        return new IllegalArgumentException("Column '" + field.getName() + "' of type " + field.getType()
+                + " can not be mapped to property '" + property.name + "' of type " + property.type.getName()
+                + " of " + beanClass.getName());
+    }
+
+    private static ColumnReader columnReader(Type type) {
+        switch (type.getCode()) {
+            case BOOL:
+                return StructReader::getBoolean;
+            case INT64:
+                return StructReader::getLong;
+            case FLOAT64:
+                return StructReader::getDouble;
+            case STRING:
+                return StructReader::getString;
+            case BYTES:
+                return StructReader::getBytes;
+            case TIMESTAMP:
+                return StructReader::getTimestamp;
+            case DATE:
+                return StructReader::getDate;
+            case ARRAY:
+                return arrayReader(type.getArrayElementType());
+            default:
+                return null;
+        }
+    }
+
+    private static ColumnReader arrayReader(Type elementType) {
+        switch (elementType.getCode()) {
+            case BOOL:
+                return StructReader::getBooleanList;
+            case INT64:
+                return StructReader::getLongList;
+            case FLOAT64:
+                return StructReader::getDoubleList;
+            case STRING:
+                return StructReader::getStringList;
+            case BYTES:
+                return StructReader::getBytesList;
+            case TIMESTAMP:
+                return StructReader::getTimestampList;
+            case DATE:
+                return StructReader::getDateList;
+            case STRUCT:
+                return StructReader::getStructList;
+            default:
+                return null;
+        }
+    }
+
+    private static Class<?> columnClass(Type type) {
+        switch (type.getCode()) {
+            case BOOL:
+                return Boolean.class;
+            case INT64:
+                return Long.class;
+            case FLOAT64:
+                return Double.class;
+            case STRING:
+                return String.class;
+            case BYTES:
+                return com.google.cloud.ByteArray.class;
+            case TIMESTAMP:
+                return Timestamp.class;
+            case DATE:
+                return com.google.cloud.Date.class;
+            case ARRAY:
+                return List.class;
+            default:
+                return null;
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(ENGLISH);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Supplier<T> bindConstructor(MethodHandles.Lookup lookup, Class<T> beanClass) {
+        MethodHandle handle;
+        try {
+            handle = lookup.findConstructor(beanClass, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(beanClass.getName() + " has no accessible default constructor", e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(beanClass));
+            return (Supplier<T>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // The bean class is not visible from the class loader of this class, fall back to the method handle
+            return () -> {
+                try {
+                    return (T) handle.invoke();
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException("Failed to instantiate " + beanClass.getName(), ex);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> bindSetter(MethodHandles.Lookup lookup, Method setter) {
+        MethodHandle handle;
+        try {
+            handle = lookup.unreflect(setter);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Setter " + setter + " is not accessible", e);
+        }
+        try {
+            Class<?> parameterType = setter.getParameterTypes()[0];
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class), handle,
+                    MethodType.methodType(void.class, setter.getDeclaringClass(),
+                            ClassUtils.resolvePrimitiveIfNecessary(parameterType)));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // The bean class is not visible from the class loader of this class, fall back to the method handle
+            return (bean, value) -> {
+                try {
+                    handle.invoke(bean, value);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException("Failed to invoke " + setter, ex);
+                }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+
+        Object apply(StructReader row, int index);
+    }
+
+    private static final class Property {
+
+        private final String name;
+        private final Class<?> type;
+        private final BiConsumer<Object, Object> setter;
+
+        private Property(String name, Class<?> type, BiConsumer<Object, Object> setter) {
+            this.name = name;
+            this.type = type;
+            this.setter = setter;
+        }
+    }
+
+    private static final class ColumnBinding {
+
+        private final int index;
+        private final BiConsumer<Object, Object> setter;
+        private final ColumnReader reader;
+
+        private ColumnBinding(int index, BiConsumer<Object, Object> setter, ColumnReader reader) {
+            this.index = index;
+            this.setter = setter;
+            this.reader = reader;
+        }
+    }
+}
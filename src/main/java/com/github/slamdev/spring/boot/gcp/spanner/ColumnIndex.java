@@ -0,0 +1,70 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.collect.MapMaker;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Column name to index mapping of a row type. Instances are cached per {@link Type} instance, so the names of a
+ * result set are resolved once and not on every row. All rows of a result set share their type instance, and looking
+ * it up by identity avoids hashing and comparing every field of the type on each call.
+ */
+public final class ColumnIndex {
+
+    /**
+     * Weak keys are compared by identity. Values are weak as well, they reference their key.
+     */
+    private static final ConcurrentMap<Type, ColumnIndex> CACHE = new MapMaker().weakKeys().weakValues().makeMap();
+
+    private final Type type;
+    private final Map<String, Integer> indexes;
+
+    private ColumnIndex(Type type) {
+        this.type = type;
+        List<StructField> fields = type.getStructFields();
+        this.indexes = new HashMap<>(fields.size() * 2);
+        for (int i = 0; i < fields.size(); i++) {
+            this.indexes.putIfAbsent(fields.get(i).getName(), i);
+        }
+    }
+
+    public static ColumnIndex of(Type type) {
+        return CACHE.computeIfAbsent(type, ColumnIndex::new);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The index of the column, or -1 when the row has no such column
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column);
+        return index == null ? -1 : index;
+    }
+
+    public boolean has(String column) {
+        return indexes.containsKey(column);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the row has no such column
+     */
+    public int getIndex(String column) {
+        Integer index = indexes.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Column '" + column + "' not found in " + type);
+        }
+        return index;
+    }
+
+    public int size() {
+        return type.getStructFields().size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.StructReader;
+import com.google.cloud.spanner.Type;
+
+import java.util.function.Function;
+
+/**
+ * Row mapper that resolves column indexes once per row type. The factory receives the {@link ColumnIndex} of the
+ * first row and returns the mapper reading rows of that type by index; it is only called again when a row of a
+ * different type arrives.
+ */
+final class IndexedRowMapper<S extends StructReader, T> implements Function<S, T> {
+
+    private final Function<ColumnIndex, ? extends Function<? super StructReader, ? extends T>> factory;
+    private volatile Binding<T> binding;
+
+    IndexedRowMapper(Function<ColumnIndex, ? extends Function<? super StructReader, ? extends T>> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public T apply(S row) {
+        Type type = row.getType();
+        Binding<T> current = binding;
+        if (current == null || current.type != type && !current.type.equals(type)) {
+            current = new Binding<>(type, factory.apply(ColumnIndex.of(type)));
+            binding = current;
+        }
+        return current.mapper.apply(row);
+    }
+
+    private static final class Binding<T> {
+
+        private final Type type;
+        private final Function<? super StructReader, ? extends T> mapper;
+
+        private Binding(Type type, Function<? super StructReader, ? extends T> mapper) {
+            this.type = type;
+            this.mapper = mapper;
+        }
+    }
+}
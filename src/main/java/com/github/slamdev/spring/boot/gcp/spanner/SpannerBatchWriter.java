@@ -0,0 +1,305 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Writes mutations in commits that stay below the Spanner per commit limits. Mutations are grouped until the
+ * estimated number of mutated cells or bytes of the next one would exceed {@code maxCells} or {@code maxBytes},
+ * and up to {@code parallelism} such commits run concurrently. Aborted commits are retried with a growing delay.
+ * Other retryable failures, e.g. UNAVAILABLE or DEADLINE_EXCEEDED, may happen after the commit was applied, so they
+ * are only retried for batches of idempotent mutations, that is without plain inserts. Input is consumed lazily, so
+ * it never has to be held in memory as a whole.
+ * <p>
+ * Commits are independent: mutations of different batches must not depend on each other, and a failure leaves the
+ * batches committed before it in place.
+ */
+public class SpannerBatchWriter {
+
+    /**
+     * Stays below the 20 000 mutated cells per commit limit, leaving room for secondary index entries.
+     */
+    public static final int DEFAULT_MAX_CELLS = 10_000;
+
+    public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpannerBatchWriter.class);
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 50;
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+    private final DatabaseClient db;
+    private final int maxCells;
+    private final long maxBytes;
+    private final int parallelism;
+    private final int maxAttempts;
+    private ExecutorService executor;
+    private boolean shutdown;
+    private volatile SpannerMetricsListener metricsListener;
+
+    public SpannerBatchWriter(DatabaseClient db) {
+        this(db, DEFAULT_MAX_CELLS, DEFAULT_MAX_BYTES, DEFAULT_PARALLELISM, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public SpannerBatchWriter(DatabaseClient db, int maxCells, long maxBytes, int parallelism, int maxAttempts) {
+        if (maxCells < 1 || maxBytes < 1 || parallelism < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Max cells, max bytes, parallelism and max attempts must be positive");
+        }
+        this.db = db;
+        this.maxCells = maxCells;
+        this.maxBytes = maxBytes;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return The number of written mutations
+     */
+    public long write(Iterable<Mutation> mutations) {
+        return write(mutations.iterator());
+    }
+
+    /**
+     * Consumes and closes the stream.
+     *
+     * @return The number of written mutations
+     */
+    public long write(Stream<Mutation> mutations) {
+        try (Stream<Mutation> stream = mutations) {
+            return write(stream.iterator());
+        }
+    }
+
+    /**
+     * Writes all remaining mutations of the iterator and returns once every commit has completed. The first failed
+     * commit stops the iteration and is rethrown after the commits still running have completed.
+     *
+     * @return The number of written mutations
+     */
+    public long write(Iterator<Mutation> mutations) {
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Future<?>> commits = new ArrayList<>();
+        long count = 0;
+        try {
+            List<Mutation> batch = new ArrayList<>();
+            long cells = 0;
+            long bytes = 0;
+            while (failure.get() == null && mutations.hasNext()) {
+                Mutation mutation = mutations.next();
+                int mutationCells = estimateCells(mutation);
+                long mutationBytes = estimateBytes(mutation);
+                if (!batch.isEmpty() && (cells + mutationCells > maxCells || bytes + mutationBytes > maxBytes)) {
+                    commits.add(submit(batch, inFlight, failure));
+                    batch = new ArrayList<>();
+                    cells = 0;
+                    bytes = 0;
+                }
+                batch.add(mutation);
+                cells += mutationCells;
+                bytes += mutationBytes;
+                count++;
+            }
+            if (!batch.isEmpty() && failure.get() == null) {
+                commits.add(submit(batch, inFlight, failure));
+            }
+        } finally {
+            awaitAll(commits);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return count;
+    }
+
+    /**
+     * Set the listener receiving the size, duration and outcome of every commit. Default is no listener.
+     */
+    public void setMetricsListener(SpannerMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The pool is created on the first write, so an unused writer does not hold any threads.
+     */
+    private synchronized ExecutorService executor() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Batch writer is shut down");
+        }
+        if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spanner-write-");
+            threadFactory.setDaemon(true);
+            executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+        }
+        return executor;
+    }
+
+    private Future<?> submit(List<Mutation> batch, Semaphore inFlight, AtomicReference<RuntimeException> failure) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing mutations", e);
+        }
+        try {
+            return executor().submit(() -> {
+                try {
+                    commit(batch);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void commit(List<Mutation> batch) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            commitWithRetries(batch);
+            success = true;
+        } finally {
+            SpannerMetricsListener listener = metricsListener;
+            if (listener != null) {
+                listener.onCommit(batch.size(), System.nanoTime() - start, success);
+            }
+        }
+    }
+
+    private void commitWithRetries(List<Mutation> batch) {
+        boolean idempotent = batch.stream().allMatch(SpannerBatchWriter::isIdempotent);
+        long delay = INITIAL_RETRY_DELAY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                db.write(batch);
+                return;
+            } catch (SpannerException e) {
+                if (attempt >= maxAttempts || !isRetryable(e, idempotent)) {
+                    throw e;
+                }
+                LOGGER.debug("Retrying commit of {} mutations after attempt {} failed", batch.size(), attempt, e);
+            }
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextLong(delay / 2, delay + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while retrying a commit", e);
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * An aborted commit is known not to be applied. Any other failure may have happened after the commit was
+     * applied, so it is only retried when applying the batch twice has the same effect as applying it once.
+     */
+    private static boolean isRetryable(SpannerException e, boolean idempotent) {
+        return e.getErrorCode() == ErrorCode.ABORTED || (idempotent && e.isRetryable());
+    }
+
+    /**
+     * A plain insert fails with ALREADY_EXISTS when it is applied again.
+     */
+    static boolean isIdempotent(Mutation mutation) {
+        return mutation.getOperation() != Mutation.Op.INSERT;
+    }
+
+    private static void awaitAll(List<Future<?>> commits) {
+        boolean interrupted = false;
+        for (Future<?> commit : commits) {
+            while (true) {
+                try {
+                    commit.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    // Commit failures are recorded by the task itself
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Every written column counts as a mutated cell, a delete is counted as a single one.
+     */
+    static int estimateCells(Mutation mutation) {
+        if (mutation.getOperation() == Mutation.Op.DELETE) {
+            return 1;
+        }
+        int cells = 0;
+        for (String ignored : mutation.getColumns()) {
+            cells++;
+        }
+        return cells;
+    }
+
+    static long estimateBytes(Mutation mutation) {
+        long bytes = mutation.getTable().length();
+        if (mutation.getOperation() == Mutation.Op.DELETE) {
+            return bytes + mutation.getKeySet().toString().length();
+        }
+        for (String column : mutation.getColumns()) {
+            bytes += column.length();
+        }
+        for (Value value : mutation.getValues()) {
+            bytes += estimateBytes(value);
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(Value value) {
+        if (value.isNull()) {
+            return 1;
+        }
+        switch (value.getType().getCode()) {
+            case BOOL:
+                return 1;
+            case INT64:
+            case FLOAT64:
+            case TIMESTAMP:
+            case DATE:
+                return 8;
+            case STRING:
+                return value.getString().length();
+            case BYTES:
+                return value.getBytes().length();
+            default:
+                return value.toString().length();
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.google.cloud.spanner.DatabaseClient;
 import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Struct;
-import com.google.cloud.spanner.Type.StructField;
+import com.google.cloud.spanner.StructReader;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
@@ -31,13 +34,118 @@ public final class SpannerHelper {
     }
 
     public static <T> List<T> mapAll(ResultSet resultSet, Function<ResultSet, T> rowMapper) {
+        return mapAll(resultSet, rowMapper, null);
+    }
+
+    /**
+     * Maps all rows and reports their number and the mapping time to the listener, e.g. the
+     * {@code SpannerMetrics} bean.
+     *
+     * @param listener The listener to report to, may be null
+     */
+    public static <T> List<T> mapAll(ResultSet resultSet, Function<ResultSet, T> rowMapper,
+                                     SpannerMetricsListener listener) {
+        long start = System.nanoTime();
         List<T> results = new ArrayList<>();
         while (resultSet.next()) {
             results.add(rowMapper.apply(resultSet));
         }
+        reportMapped(listener, results.size(), start);
         return results;
     }
 
+    /**
+     * Maps rows lazily as the stream is consumed. The result set is closed once it is exhausted or the stream is
+     * closed, so streams that are not consumed to the end should be closed by the caller.
+     */
+    public static <T> Stream<T> stream(ResultSet resultSet, Function<ResultSet, T> rowMapper) {
+        return stream(resultSet, rowMapper, null);
+    }
+
+    /**
+     * Maps rows lazily like {@link #stream(ResultSet, Function)} and reports the consumed rows and the time until the
+     * result set is closed to the listener.
+     *
+     * @param listener The listener to report to, may be null
+     */
+    public static <T> Stream<T> stream(ResultSet resultSet, Function<ResultSet, T> rowMapper,
+                                       SpannerMetricsListener listener) {
+        long start = System.nanoTime();
+        class Rows extends Spliterators.AbstractSpliterator<T> {
+
+            private long count;
+            private boolean closed;
+
+            private Rows() {
+                super(Long.MAX_VALUE, Spliterator.ORDERED);
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (closed || !resultSet.next()) {
+                    close();
+                    return false;
+                }
+                action.accept(rowMapper.apply(resultSet));
+                count++;
+                return true;
+            }
+
+            private void close() {
+                if (!closed) {
+                    closed = true;
+                    resultSet.close();
+                    reportMapped(listener, count, start);
+                }
+            }
+        }
+        Rows rows = new Rows();
+        return StreamSupport.stream(rows, false).onClose(rows::close);
+    }
+
+    /**
+     * Maps rows into batches of at most {@code batchSize} and hands every batch to the consumer before the next
+     * rows are mapped. The result set is closed afterwards.
+     *
+     * @return The number of mapped rows
+     */
+    public static <T> long forEachBatch(ResultSet resultSet, Function<ResultSet, T> rowMapper, int batchSize,
+                                        Consumer<List<T>> consumer) {
+        return forEachBatch(resultSet, rowMapper, batchSize, consumer, null);
+    }
+
+    /**
+     * Maps rows in batches like {@link #forEachBatch(ResultSet, Function, int, Consumer)} and reports the mapped rows
+     * and the total time, including the time spent by the consumer, to the listener.
+     *
+     * @param listener The listener to report to, may be null
+     * @return The number of mapped rows
+     */
+    public static <T> long forEachBatch(ResultSet resultSet, Function<ResultSet, T> rowMapper, int batchSize,
+                                        Consumer<List<T>> consumer, SpannerMetricsListener listener) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long start = System.nanoTime();
+        long count = 0;
+        try (ResultSet rs = resultSet) {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (rs.next()) {
+                batch.add(rowMapper.apply(rs));
+                count++;
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+            }
+        }
+        reportMapped(listener, count, start);
+        return count;
+    }
+
     public static <T, K> Map<T, K> map(ResultSet resultSet, Function<ResultSet, T> keyMapper, Function<ResultSet, K> valueMapper) {
         Map<T, K> results = new HashMap<>();
         while (resultSet.next()) {
@@ -47,18 +155,68 @@ public final class SpannerHelper {
     }
 
     public static boolean isColumnExists(String name, ResultSet rs) {
-        return rs.getType().getStructFields().stream().map(StructField::getName).anyMatch(name::equals);
+        return ColumnIndex.of(rs.getType()).has(name);
+    }
+
+    /**
+     * Creates a row mapper that resolves column indexes once per row type, for rows of a {@link ResultSet} as well as
+     * for {@link Struct} rows, e.g.
+     * <pre>
+     * mapAll(resultSet, rowMapper(columns -&gt; {
+     *     int id = columns.getIndex("id");
+     *     int name = columns.indexOf("name");
+     *     return row -&gt; new User(row.getLong(id), name &lt; 0 || row.isNull(name) ? null : row.getString(name));
+     * }))
+     * </pre>
+     */
+    public static <S extends StructReader, T> Function<S, T> rowMapper(
+            Function<ColumnIndex, ? extends Function<? super StructReader, ? extends T>> factory) {
+        return new IndexedRowMapper<>(factory);
     }
 
+    /**
+     * Creates a row mapper populating new instances of the bean class through its setters, matching columns to
+     * properties ignoring case and underscores.
+     */
+    public static <S extends StructReader, T> Function<S, T> beanMapper(Class<T> beanClass) {
+        BeanRowMapper<T> mapper = BeanRowMapper.of(beanClass);
+        return rowMapper(mapper::bind);
+    }
+
+    /**
+     * Writes the mutations sequentially in slices of {@code limit}. See {@link SpannerBatchWriter} for commits sized
+     * by the Spanner limits, written concurrently and measured.
+     */
     public static void batchWrite(DatabaseClient db, List<Mutation> input, int limit) {
-        List<Mutation> mutations = new ArrayList<>(input);
-        while (mutations.size() >= limit) {
-            List<Mutation> part = mutations.subList(0, limit);
-            db.write(part);
-            part.clear();
+        batchWrite(db, input, limit, null);
+    }
+
+    /**
+     * Writes the mutations like {@link #batchWrite(DatabaseClient, List, int)} and reports every slice as a commit to
+     * the listener.
+     *
+     * @param listener The listener to report to, may be null
+     */
+    public static void batchWrite(DatabaseClient db, List<Mutation> input, int limit,
+                                  SpannerMetricsListener listener) {
+        for (int from = 0; from < input.size(); from += limit) {
+            List<Mutation> part = input.subList(from, Math.min(from + limit, input.size()));
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                db.write(part);
+                success = true;
+            } finally {
+                if (listener != null) {
+                    listener.onCommit(part.size(), System.nanoTime() - start, success);
+                }
+            }
         }
-        if (!mutations.isEmpty()) {
-            db.write(mutations);
+    }
+
+    private static void reportMapped(SpannerMetricsListener listener, long rows, long start) {
+        if (listener != null) {
+            listener.onMapped(rows, System.nanoTime() - start);
         }
     }
 }
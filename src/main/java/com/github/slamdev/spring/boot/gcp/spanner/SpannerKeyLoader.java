@@ -0,0 +1,200 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loads rows of a table by primary key, coalescing lookups made concurrently into one read. The first lookup of a
+ * batch opens a window of {@code windowMicros}, lookups made within it join the batch, which is read when the window
+ * closes or once it holds {@code maxBatchSize} distinct keys. Lookups of the same key within a batch share the
+ * row. Created by {@link SpannerKeyLoaderFactory}.
+ */
+public class SpannerKeyLoader<T> {
+
+    private final DatabaseClient db;
+    private final Supplier<ScheduledExecutorService> executor;
+    private final TimestampBound bound;
+    private final String table;
+    private final List<String> keyColumns;
+    private final List<String> columns;
+    private final Function<Struct, T> rowMapper;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private Map<Key, CompletableFuture<Optional<T>>> batch;
+
+    SpannerKeyLoader(DatabaseClient db, Supplier<ScheduledExecutorService> executor, TimestampBound bound, String table,
+                     List<String> keyColumns, List<String> columns, Function<Struct, T> rowMapper,
+                     long windowMicros, int maxBatchSize) {
+        if (keyColumns.isEmpty() || !columns.containsAll(keyColumns)) {
+            throw new IllegalArgumentException("Key columns must be present and part of the read columns");
+        }
+        if (windowMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Window must not be negative, max batch size must be positive");
+        }
+        this.db = db;
+        this.executor = executor;
+        this.bound = bound;
+        this.table = table;
+        this.keyColumns = new ArrayList<>(keyColumns);
+        this.columns = new ArrayList<>(columns);
+        this.rowMapper = rowMapper;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the row of the key once its batch is read, empty when the table has no such row.
+     */
+    public CompletableFuture<Optional<T>> load(Key key) {
+        Map<Key, CompletableFuture<Optional<T>>> opened = null;
+        Map<Key, CompletableFuture<Optional<T>>> full = null;
+        CompletableFuture<Optional<T>> row;
+        synchronized (this) {
+            if (batch == null) {
+                batch = new LinkedHashMap<>();
+                opened = batch;
+            }
+            row = batch.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.size() >= maxBatchSize) {
+                full = batch;
+                batch = null;
+            }
+        }
+        // Scheduled outside of the lock, a rejected task runs on the calling thread and takes the lock itself
+        if (full != null) {
+            Map<Key, CompletableFuture<Optional<T>>> toRead = full;
+            schedule(() -> read(toRead), 0);
+        } else if (opened != null) {
+            Map<Key, CompletableFuture<Optional<T>>> scheduled = opened;
+            schedule(() -> dispatchIfCurrent(scheduled), windowMicros);
+        }
+        return row;
+    }
+
+    /**
+     * Blocks until the row of the key is read.
+     */
+    public Optional<T> get(Key key) {
+        return join(load(key));
+    }
+
+    /**
+     * Loads all keys and returns the found rows by key, keys without a row are left out.
+     */
+    public Map<Key, T> getAll(Collection<Key> keys) {
+        Map<Key, CompletableFuture<Optional<T>>> rows = new LinkedHashMap<>();
+        for (Key key : keys) {
+            rows.put(key, load(key));
+        }
+        Map<Key, T> results = new LinkedHashMap<>();
+        rows.forEach((key, row) -> join(row).ifPresent(value -> results.put(key, value)));
+        return results;
+    }
+
+    private static <T> Optional<T> join(CompletableFuture<Optional<T>> row) {
+        try {
+            return row.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void schedule(Runnable task, long delayMicros) {
+        try {
+            executor.get().schedule(task, delayMicros, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Reads the batch on the calling thread once the loader is shut down
+            task.run();
+        }
+    }
+
+    private void dispatchIfCurrent(Map<Key, CompletableFuture<Optional<T>>> scheduled) {
+        synchronized (this) {
+            if (batch != scheduled) {
+                // Already read because it became full
+                return;
+            }
+            batch = null;
+        }
+        read(scheduled);
+    }
+
+    private void read(Map<Key, CompletableFuture<Optional<T>>> toRead) {
+        KeySet.Builder keys = KeySet.newBuilder();
+        toRead.keySet().forEach(keys::addKey);
+        try (ResultSet resultSet = db.singleUse(bound).read(table, keys.build(), columns)) {
+            while (resultSet.next()) {
+                Struct struct = resultSet.getCurrentRowAsStruct();
+                CompletableFuture<Optional<T>> row = toRead.get(keyOf(struct));
+                if (row != null) {
+                    row.complete(Optional.ofNullable(rowMapper.apply(struct)));
+                }
+            }
+        } catch (RuntimeException e) {
+            toRead.values().forEach(row -> row.completeExceptionally(e));
+            return;
+        }
+        toRead.values().forEach(row -> row.complete(Optional.empty()));
+    }
+
+    private Key keyOf(Struct row) {
+        ColumnIndex columnIndex = ColumnIndex.of(row.getType());
+        Key.Builder key = Key.newBuilder();
+        for (String column : keyColumns) {
+            int index = columnIndex.getIndex(column);
+            if (row.isNull(index)) {
+                key.appendObject(null);
+                continue;
+            }
+            Type type = row.getType().getStructFields().get(index).getType();
+            switch (type.getCode()) {
+                case BOOL:
+                    key.append(row.getBoolean(index));
+                    break;
+                case INT64:
+                    key.append(row.getLong(index));
+                    break;
+                case FLOAT64:
+                    key.append(row.getDouble(index));
+                    break;
+                case STRING:
+                    key.append(row.getString(index));
+                    break;
+                case BYTES:
+                    key.append(row.getBytes(index));
+                    break;
+                case TIMESTAMP:
+                    key.append(row.getTimestamp(index));
+                    break;
+                case DATE:
+                    key.append(row.getDate(index));
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported key column type " + type);
+            }
+        }
+        return key.build();
+    }
+}
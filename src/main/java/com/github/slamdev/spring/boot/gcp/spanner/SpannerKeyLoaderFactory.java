@@ -0,0 +1,93 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.TimestampBound;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Creates {@link SpannerKeyLoader} instances sharing one pool of {@code threads}, which closes the batch windows and
+ * reads the batches, so at most that many batch reads run concurrently.
+ */
+public class SpannerKeyLoaderFactory {
+
+    public static final long DEFAULT_WINDOW_MICROS = 2_000;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    public static final int DEFAULT_THREADS = 8;
+
+    private final DatabaseClient db;
+    private final TimestampBound bound;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final int threads;
+    private ScheduledExecutorService executor;
+    private boolean shutdown;
+
+    public SpannerKeyLoaderFactory(DatabaseClient db, TimestampBound bound) {
+        this(db, bound, DEFAULT_WINDOW_MICROS, DEFAULT_MAX_BATCH_SIZE, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param bound        The bound of the batch reads
+     * @param windowMicros Default time lookups are collected before their batch is read
+     * @param maxBatchSize Default number of distinct keys that makes a batch read immediately
+     */
+    public SpannerKeyLoaderFactory(DatabaseClient db, TimestampBound bound, long windowMicros, int maxBatchSize,
+                                   int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be positive");
+        }
+        this.db = db;
+        this.bound = bound;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.threads = threads;
+    }
+
+    /**
+     * @param keyColumns The primary key columns of the table in key order, must be part of the read columns
+     */
+    public <T> SpannerKeyLoader<T> create(String table, List<String> keyColumns, List<String> columns,
+                                          Function<Struct, T> rowMapper) {
+        return create(table, keyColumns, columns, rowMapper, windowMicros, maxBatchSize);
+    }
+
+    public <T> SpannerKeyLoader<T> create(String table, List<String> keyColumns, List<String> columns,
+                                          Function<Struct, T> rowMapper, long windowMicros, int maxBatchSize) {
+        return new SpannerKeyLoader<>(db, this::executor, bound, table, keyColumns, columns, rowMapper, windowMicros,
+                maxBatchSize);
+    }
+
+    /**
+     * Batches already waiting for their window are still read.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The pool is created by the first lookup, so unused loaders do not hold any threads.
+     */
+    private synchronized ScheduledExecutorService executor() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Key loader factory is shut down");
+        }
+        if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spanner-load-");
+            threadFactory.setDaemon(true);
+            executor = Executors.newScheduledThreadPool(threads, threadFactory);
+        }
+        return executor;
+    }
+}
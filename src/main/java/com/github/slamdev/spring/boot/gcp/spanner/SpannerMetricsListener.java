@@ -0,0 +1,20 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+/**
+ * Receives measurements of Spanner writes and row mappings, e.g. to publish them as metrics. Methods are called on
+ * the threads running the operations, so implementations must be thread safe and fast.
+ */
+public interface SpannerMetricsListener {
+
+    /**
+     * Called when a commit of a batch of mutations completes, including its retries.
+     */
+    default void onCommit(int mutations, long durationNanos, boolean success) {
+    }
+
+    /**
+     * Called when the rows of a query or read are mapped, measured from the start of the query to its last row.
+     */
+    default void onMapped(long rows, long durationNanos) {
+    }
+}
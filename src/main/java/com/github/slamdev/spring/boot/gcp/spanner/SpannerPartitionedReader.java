@@ -0,0 +1,322 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ReadOnlyTransaction;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.TimestampBound;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a table or query result split into partitions, e.g. disjoint key ranges, with up to {@code parallelism}
+ * partitions read concurrently. All partitions are read at the same timestamp, so together they form a consistent
+ * snapshot. A read can be resumed by passing the timestamp of the interrupted read and the partitions reported as
+ * completed, as long as the timestamp is within the version retention period of the database.
+ */
+public class SpannerPartitionedReader {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final Statement TIMESTAMP_QUERY = Statement.of("SELECT 1");
+
+    private static final Object END = new Object();
+
+    private final DatabaseClient db;
+    private final int parallelism;
+    private ExecutorService executor;
+    private boolean shutdown;
+    private volatile SpannerMetricsListener metricsListener;
+
+    public SpannerPartitionedReader(DatabaseClient db, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.db = db;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the timestamp of a strong read made now, to read all partitions at.
+     */
+    public Timestamp currentReadTimestamp() {
+        try (ReadOnlyTransaction transaction = db.readOnlyTransaction(TimestampBound.strong());
+             ResultSet resultSet = transaction.executeQuery(TIMESTAMP_QUERY)) {
+            // The read timestamp is only assigned once the query is executed
+            resultSet.next();
+            return transaction.getReadTimestamp();
+        }
+    }
+
+    /**
+     * Reads all partitions at the current timestamp.
+     *
+     * @return The number of read rows
+     */
+    public <T> long read(List<Partition> partitions, Function<ResultSet, T> rowMapper, Consumer<? super T> consumer) {
+        return read(currentReadTimestamp(), partitions, Collections.emptySet(), rowMapper, consumer, null);
+    }
+
+    /**
+     * Reads the partitions whose indexes are not in {@code completed} and returns once all of them are read. Rows of
+     * different partitions are passed to the consumer concurrently, so it must be thread safe. The first failure
+     * stops all partitions and is rethrown.
+     *
+     * @param completed Indexes of the partitions read before, skipped when a read is resumed
+     * @param listener  Notified about every completed partition, may be null
+     * @return The number of read rows
+     */
+    public <T> long read(Timestamp readTimestamp, List<Partition> partitions, Set<Integer> completed,
+                         Function<ResultSet, T> rowMapper, Consumer<? super T> consumer, ProgressListener listener) {
+        return join(readAsync(readTimestamp, partitions, completed, rowMapper, consumer, listener, new AtomicBoolean()));
+    }
+
+    /**
+     * Reads all partitions at the current timestamp into a stream that must be closed.
+     */
+    public <T> Stream<T> stream(List<Partition> partitions, Function<ResultSet, T> rowMapper) {
+        return stream(currentReadTimestamp(), partitions, Collections.emptySet(), rowMapper, null);
+    }
+
+    /**
+     * Returns a stream of the rows of the partitions whose indexes are not in {@code completed}, in no particular
+     * order. Partitions are read in the background while the stream is consumed, up to
+     * {@link #DEFAULT_BATCH_SIZE} rows per partition read concurrently are buffered. Closing the stream stops the
+     * read. The row mapper must not return null.
+     *
+     * @param completed Indexes of the partitions read before, skipped when a read is resumed
+     * @param listener  Notified about every completed partition, may be null
+     */
+    public <T> Stream<T> stream(Timestamp readTimestamp, List<Partition> partitions, Set<Integer> completed,
+                                Function<ResultSet, T> rowMapper, ProgressListener listener) {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(DEFAULT_BATCH_SIZE * parallelism);
+        AtomicBoolean closed = new AtomicBoolean();
+        CompletableFuture<Long> read = readAsync(readTimestamp, partitions, completed, rowMapper,
+                row -> put(queue, row, closed), listener, closed);
+        read.whenComplete((rows, e) -> put(queue, END, closed));
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.NONNULL) {
+
+            private boolean ended;
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (ended) {
+                    return false;
+                }
+                Object row = take(queue);
+                if (row == END) {
+                    ended = true;
+                    join(read);
+                    return false;
+                }
+                action.accept((T) row);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            closed.set(true);
+            queue.clear();
+        });
+    }
+
+    /**
+     * Set the listener receiving the number of rows and the duration of every partition read. Default is no
+     * listener.
+     */
+    public void setMetricsListener(SpannerMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The pool is created on the first read, so an unused reader does not hold any threads.
+     */
+    private synchronized ExecutorService executor() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Partitioned reader is shut down");
+        }
+        if (executor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spanner-read-");
+            threadFactory.setDaemon(true);
+            executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+        }
+        return executor;
+    }
+
+    private <T> CompletableFuture<Long> readAsync(Timestamp readTimestamp, List<Partition> partitions,
+                                                  Set<Integer> completed, Function<ResultSet, T> rowMapper,
+                                                  Consumer<? super T> consumer, ProgressListener listener,
+                                                  AtomicBoolean closed) {
+        TimestampBound bound = TimestampBound.ofReadTimestamp(readTimestamp);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        BooleanSupplier stopped = () -> failure.get() != null || closed.get();
+        AtomicLong rows = new AtomicLong();
+        ExecutorService executor = executor();
+        List<CompletableFuture<Void>> reads = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            if (completed.contains(i)) {
+                continue;
+            }
+            int index = i;
+            Partition partition = partitions.get(i);
+            reads.add(CompletableFuture.runAsync(() -> {
+                try {
+                    long partitionRows = readPartition(bound, partition, rowMapper, consumer, stopped);
+                    rows.addAndGet(partitionRows);
+                    if (listener != null) {
+                        listener.onPartitionCompleted(index, partitionRows);
+                    }
+                } catch (CancellationException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> {
+            // Partitions stopped by the first failure complete with a cancellation, report the failure instead
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (e != null) {
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            return rows.get();
+        });
+    }
+
+    private <T> long readPartition(TimestampBound bound, Partition partition, Function<ResultSet, T> rowMapper,
+                                   Consumer<? super T> consumer, BooleanSupplier stopped) {
+        if (stopped.getAsBoolean()) {
+            throw new CancellationException();
+        }
+        long start = System.nanoTime();
+        long rows = SpannerHelper.forEachBatch(partition.execute(db.singleUse(bound)), rowMapper, DEFAULT_BATCH_SIZE,
+                batch -> {
+                    if (stopped.getAsBoolean()) {
+                        throw new CancellationException();
+                    }
+                    batch.forEach(consumer);
+                });
+        SpannerMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onMapped(rows, System.nanoTime() - start);
+        }
+        return rows;
+    }
+
+    /**
+     * Waits for space in the queue until the stream is closed, so a closed stream never blocks the partitions.
+     */
+    private static void put(BlockingQueue<Object> queue, Object row, AtomicBoolean closed) {
+        try {
+            while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                if (closed.get()) {
+                    throw new CancellationException();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    private static long join(CompletableFuture<Long> read) {
+        try {
+            return read.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static Object take(BlockingQueue<Object> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading partitions", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * Called on the thread reading the partition once all of its rows are passed on.
+         */
+        void onPartitionCompleted(int partition, long rows);
+    }
+
+    /**
+     * A part of a partitioned read, e.g. a query restricted to a key range or a read of a key range.
+     */
+    public static final class Partition {
+
+        private final String description;
+        private final Function<ReadContext, ResultSet> read;
+
+        private Partition(String description, Function<ReadContext, ResultSet> read) {
+            this.description = description;
+            this.read = read;
+        }
+
+        public static Partition query(Statement statement) {
+            return new Partition(statement.toString(), context -> context.executeQuery(statement));
+        }
+
+        public static Partition read(String table, KeySet keys, Iterable<String> columns) {
+            return new Partition(table + " " + keys, context -> context.read(table, keys, columns));
+        }
+
+        public static Partition readUsingIndex(String table, String index, KeySet keys, Iterable<String> columns) {
+            return new Partition(table + "@" + index + " " + keys,
+                    context -> context.readUsingIndex(table, index, keys, columns));
+        }
+
+        private ResultSet execute(ReadContext context) {
+            return read.apply(context);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs read-only queries with a {@link TimestampBound}, so reads that tolerate staleness can be served by the
+ * nearest replica instead of paying the round trip to the leader. Methods without an explicit bound use the default
+ * bound of the reader.
+ */
+public class SpannerReader {
+
+    private final DatabaseClient db;
+    private final TimestampBound defaultBound;
+    private volatile SpannerMetricsListener metricsListener;
+
+    public SpannerReader(DatabaseClient db, TimestampBound defaultBound) {
+        this.db = db;
+        this.defaultBound = defaultBound;
+    }
+
+    public TimestampBound getDefaultBound() {
+        return defaultBound;
+    }
+
+    /**
+     * Set the listener receiving the number of rows and the duration of every query and read. Default is no
+     * listener.
+     */
+    public void setMetricsListener(SpannerMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public <T> Optional<T> queryOne(Statement statement, Function<ResultSet, T> rowMapper) {
+        return queryOne(defaultBound, statement, rowMapper);
+    }
+
+    public <T> Optional<T> queryOne(TimestampBound bound, Statement statement, Function<ResultSet, T> rowMapper) {
+        long start = System.nanoTime();
+        try (ResultSet resultSet = db.singleUse(bound).executeQuery(statement)) {
+            Optional<T> row = SpannerHelper.map(resultSet, rowMapper);
+            reportMapped(row.isPresent() ? 1 : 0, start);
+            return row;
+        }
+    }
+
+    public <T> List<T> queryAll(Statement statement, Function<ResultSet, T> rowMapper) {
+        return queryAll(defaultBound, statement, rowMapper);
+    }
+
+    public <T> List<T> queryAll(TimestampBound bound, Statement statement, Function<ResultSet, T> rowMapper) {
+        long start = System.nanoTime();
+        try (ResultSet resultSet = db.singleUse(bound).executeQuery(statement)) {
+            List<T> rows = SpannerHelper.mapAll(resultSet, rowMapper);
+            reportMapped(rows.size(), start);
+            return rows;
+        }
+    }
+
+    public <T> Optional<T> readRow(String table, Key key, Iterable<String> columns, Function<Struct, T> rowMapper) {
+        return readRow(defaultBound, table, key, columns, rowMapper);
+    }
+
+    public <T> Optional<T> readRow(TimestampBound bound, String table, Key key, Iterable<String> columns,
+                                   Function<Struct, T> rowMapper) {
+        long start = System.nanoTime();
+        Optional<T> row = SpannerHelper.map(db.singleUse(bound).readRow(table, key, columns), rowMapper);
+        reportMapped(row.isPresent() ? 1 : 0, start);
+        return row;
+    }
+
+    /**
+     * Runs several reads in one read-only transaction, so all of them observe the same snapshot. Spanner does not
+     * support bounded staleness in multi-use transactions, so a max staleness default bound is applied as exact
+     * staleness of the same duration.
+     */
+    public <T> T inSnapshot(Function<ReadContext, T> reads) {
+        return inSnapshot(toSnapshotBound(defaultBound), reads);
+    }
+
+    public <T> T inSnapshot(TimestampBound bound, Function<ReadContext, T> reads) {
+        try (ReadOnlyTransaction transaction = db.readOnlyTransaction(bound)) {
+            return reads.apply(transaction);
+        }
+    }
+
+    private void reportMapped(long rows, long start) {
+        SpannerMetricsListener listener = metricsListener;
+        if (listener != null) {
+            listener.onMapped(rows, System.nanoTime() - start);
+        }
+    }
+
+    private static TimestampBound toSnapshotBound(TimestampBound bound) {
+        switch (bound.getMode()) {
+            case MAX_STALENESS:
+                return TimestampBound.ofExactStaleness(bound.getStaleness(TimeUnit.MICROSECONDS), TimeUnit.MICROSECONDS);
+            case MIN_READ_TIMESTAMP:
+                return TimestampBound.strong();
+            default:
+                return bound;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ReadOnlyTransaction;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs trivial queries concurrently once all singletons are created, so sessions and channels of the pool are
+ * established before the application context reports ready and not by the first requests. Every query keeps its
+ * session checked out until all queries are done, so each of them warms up a distinct session. Failures are logged
+ * and do not fail the startup.
+ */
+public class SpannerWarmUp implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpannerWarmUp.class);
+
+    private static final Statement WARM_UP_QUERY = Statement.of("SELECT 1");
+
+    private final DatabaseClient db;
+    private final int sessions;
+    private final int parallelism;
+    private final long timeoutMillis;
+
+    /**
+     * @param sessions      Number of sessions held at the same time, each of them warmed up by one query
+     * @param parallelism   Maximum number of warm-up queries running concurrently
+     * @param timeoutMillis Maximum time to wait for the warm-up
+     */
+    public SpannerWarmUp(DatabaseClient db, int sessions, int parallelism, long timeoutMillis) {
+        if (sessions < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Sessions and parallelism must be positive");
+        }
+        this.db = db;
+        this.sessions = sessions;
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("spanner-warm-up-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(sessions, parallelism), threadFactory);
+        List<ReadOnlyTransaction> held = new ArrayList<>();
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            List<Future<?>> queries = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                queries.add(executor.submit(() -> query(held, released)));
+            }
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (Future<?> query : queries) {
+                query.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            LOGGER.info("Warmed up {} spanner sessions in {} ms", sessions,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("Spanner warm-up did not complete", e);
+        } finally {
+            executor.shutdownNow();
+            release(held, released);
+        }
+    }
+
+    /**
+     * Runs the query in a read-only transaction that keeps its session checked out until all queries are done, so
+     * the pool can not hand the same session to the next query.
+     */
+    private void query(List<ReadOnlyTransaction> held, AtomicBoolean released) {
+        ReadOnlyTransaction transaction = db.readOnlyTransaction();
+        try (ResultSet resultSet = transaction.executeQuery(WARM_UP_QUERY)) {
+            while (resultSet.next()) {
+                // Consume the single row
+            }
+        } catch (RuntimeException e) {
+            transaction.close();
+            throw e;
+        }
+        synchronized (held) {
+            if (!released.get()) {
+                held.add(transaction);
+                return;
+            }
+        }
+        // Completed after the warm-up timed out
+        transaction.close();
+    }
+
+    private static void release(List<ReadOnlyTransaction> held, AtomicBoolean released) {
+        List<ReadOnlyTransaction> transactions;
+        synchronized (held) {
+            released.set(true);
+            transactions = new ArrayList<>(held);
+            held.clear();
+        }
+        for (ReadOnlyTransaction transaction : transactions) {
+            try {
+                transaction.close();
+            } catch (RuntimeException e) {
+                LOGGER.debug("Failed to release warm-up session", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking view of a {@link StorageResource}. Every operation runs on the given executor, so the calling thread
+ * is free while the storage round trip is in flight. Failures complete the returned future exceptionally, with
+ * {@link IOException IOExceptions} wrapped into {@link UncheckedIOException}.
+ */
+public class AsyncStorageResource {
+
+    private final StorageResource resource;
+    private final Executor executor;
+
+    public AsyncStorageResource(StorageResource resource, Executor executor) {
+        this.resource = resource;
+        this.executor = executor;
+    }
+
+    public StorageResource getResource() {
+        return resource;
+    }
+
+    public CompletableFuture<Boolean> existsAsync() {
+        return CompletableFuture.supplyAsync(resource::exists, executor);
+    }
+
+    public CompletableFuture<Long> contentLengthAsync() {
+        return supplyAsync(resource::contentLength);
+    }
+
+    public CompletableFuture<Long> lastModifiedAsync() {
+        return supplyAsync(resource::lastModified);
+    }
+
+    /**
+     * Reads the whole object contents into memory.
+     */
+    public CompletableFuture<byte[]> readAllAsync() {
+        return supplyAsync(() -> {
+            try (InputStream in = resource.getInputStream()) {
+                return StreamUtils.copyToByteArray(in);
+            }
+        });
+    }
+
+    /**
+     * Replaces the object contents with the remaining bytes of the buffer. The buffer must not be modified until the
+     * returned future completes.
+     *
+     * @return The number of written bytes
+     */
+    public CompletableFuture<Long> writeAsync(ByteBuffer contents) {
+        return supplyAsync(() -> {
+            long count = 0;
+            try (WritableByteChannel channel = resource.writableChannel()) {
+                while (contents.hasRemaining()) {
+                    count += channel.write(contents);
+                }
+            }
+            return count;
+        });
+    }
+
+    public CompletableFuture<Boolean> deleteAsync() {
+        return CompletableFuture.supplyAsync(resource::delete, executor);
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(IOSupplier<T> supplier) {
+        Supplier<T> unchecked = () -> {
+            try {
+                return supplier.get();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        return CompletableFuture.supplyAsync(unchecked, executor);
+    }
+
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+
+        T get() throws IOException;
+    }
+}
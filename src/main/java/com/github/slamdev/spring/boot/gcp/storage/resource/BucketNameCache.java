@@ -0,0 +1,81 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time bound cache of the bucket names of the project, used to resolve bucket wildcards. Names are listed per
+ * literal prefix (the part of a bucket pattern before its first wildcard) with {@link Storage.BucketListOption#prefix}
+ * and kept in a sorted index, so a fresh listing of a shorter prefix answers lookups of all longer prefixes too.
+ */
+public class BucketNameCache {
+
+    private final Storage storage;
+    private final long ttlNanos;
+    private final ConcurrentMap<String, Listing> listings = new ConcurrentHashMap<>();
+
+    public BucketNameCache(Storage storage, long ttl, TimeUnit unit) {
+        this.storage = storage;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the names of all buckets starting with the given prefix in lexicographical order.
+     */
+    public List<String> getBucketNames(String prefix) {
+        long now = System.nanoTime();
+        for (int i = prefix.length(); i >= 0; i--) {
+            Listing listing = listings.get(prefix.substring(0, i));
+            if (listing != null && listing.expiresAt - now > 0) {
+                return listing.namesStartingWith(prefix);
+            }
+        }
+        Listing listing = new Listing(listBucketNames(storage, prefix), System.nanoTime() + ttlNanos);
+        listings.put(prefix, listing);
+        return listing.namesStartingWith(prefix);
+    }
+
+    /**
+     * Drops all cached listings, so the next lookups list the buckets again.
+     */
+    public void refresh() {
+        listings.clear();
+    }
+
+    static NavigableSet<String> listBucketNames(Storage storage, String prefix) {
+        Page<Bucket> page = prefix.isEmpty() ? storage.list() : storage.list(Storage.BucketListOption.prefix(prefix));
+        NavigableSet<String> names = new TreeSet<>();
+        for (Bucket bucket : page.iterateAll()) {
+            names.add(bucket.getName());
+        }
+        return names;
+    }
+
+    private static final class Listing {
+
+        private final NavigableSet<String> names;
+        private final long expiresAt;
+
+        private Listing(NavigableSet<String> names, long expiresAt) {
+            this.names = Collections.unmodifiableNavigableSet(names);
+            this.expiresAt = expiresAt;
+        }
+
+        private List<String> namesStartingWith(String prefix) {
+            if (prefix.isEmpty()) {
+                return new ArrayList<>(names);
+            }
+            return new ArrayList<>(names.subSet(prefix, true, prefix + Character.MAX_VALUE, true));
+        }
+    }
+}
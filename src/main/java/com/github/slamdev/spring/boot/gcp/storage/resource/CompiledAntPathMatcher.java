@@ -0,0 +1,276 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link AntPathMatcher} that compiles each pattern once into segments matched character by character, so
+ * {@link #match(String, String)} neither tokenizes the path nor runs regular expressions. It keeps the Ant semantics
+ * of {@code *}, {@code **} and {@code ?} with the '/' separator, including token trimming when enabled, as it is by
+ * default, and wildcards not matching line terminators. Patterns with URI template variables, custom separators and
+ * case insensitive matching are handed to {@link AntPathMatcher}.
+ */
+public class CompiledAntPathMatcher extends AntPathMatcher {
+
+    private static final int CACHE_LIMIT = 1024;
+    private static final String SEPARATOR = "/";
+    private static final ThreadLocal<int[]> SEGMENT_BOUNDS = ThreadLocal.withInitial(() -> new int[64]);
+
+    private final ConcurrentMap<String, CompiledPattern> patterns = new ConcurrentHashMap<>();
+    private final boolean defaultSeparator;
+    private boolean caseSensitive = true;
+    private boolean trimTokens = true;
+
+    public CompiledAntPathMatcher() {
+        this.defaultSeparator = true;
+    }
+
+    public CompiledAntPathMatcher(String pathSeparator) {
+        super(pathSeparator);
+        this.defaultSeparator = SEPARATOR.equals(pathSeparator);
+    }
+
+    @Override
+    public void setTrimTokens(boolean trimTokens) {
+        super.setTrimTokens(trimTokens);
+        this.trimTokens = trimTokens;
+        patterns.clear();
+    }
+
+    @Override
+    public void setCaseSensitive(boolean caseSensitive) {
+        super.setCaseSensitive(caseSensitive);
+        this.caseSensitive = caseSensitive;
+    }
+
+    @Override
+    public boolean match(String pattern, String path) {
+        CompiledPattern compiled = compile(pattern);
+        return compiled == null ? super.match(pattern, path) : compiled.matches(path);
+    }
+
+    /**
+     * Returns the compiled form of the pattern, or {@code null} when it is not supported and the regular
+     * {@link AntPathMatcher} matching is used.
+     */
+    CompiledPattern compile(String pattern) {
+        if (!defaultSeparator || !caseSensitive || pattern.indexOf('{') != -1) {
+            return null;
+        }
+        CompiledPattern compiled = patterns.get(pattern);
+        if (compiled == null) {
+            compiled = new CompiledPattern(pattern, trimTokens);
+            if (patterns.size() < CACHE_LIMIT) {
+                patterns.putIfAbsent(pattern, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    static final class CompiledPattern {
+
+        private final char[][] segments;
+        private final boolean[] doubleWildcards;
+        private final boolean leadingSeparator;
+        private final boolean trailingSeparator;
+        private final boolean trimTokens;
+
+        private CompiledPattern(String pattern, boolean trimTokens) {
+            String[] tokens = StringUtils.tokenizeToStringArray(pattern, SEPARATOR, trimTokens, true);
+            this.segments = new char[tokens.length][];
+            this.doubleWildcards = new boolean[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                segments[i] = tokens[i].toCharArray();
+                doubleWildcards[i] = "**".equals(tokens[i]);
+            }
+            this.leadingSeparator = pattern.startsWith(SEPARATOR);
+            this.trailingSeparator = pattern.endsWith(SEPARATOR);
+            this.trimTokens = trimTokens;
+        }
+
+        /**
+         * Mirrors {@code AntPathMatcher.doMatch} with full matching, working on segment bounds of the path instead of
+         * tokenized strings.
+         */
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        boolean matches(String path) {
+            if (path.startsWith(SEPARATOR) != leadingSeparator) {
+                return false;
+            }
+            int[] bounds = segmentBounds(path, trimTokens);
+            int pathSegments = bounds[bounds.length - 1];
+
+            int pattIdxStart = 0;
+            int pattIdxEnd = segments.length - 1;
+            int pathIdxStart = 0;
+            int pathIdxEnd = pathSegments - 1;
+
+            // Match all elements up to the first **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (doubleWildcards[pattIdxStart]) {
+                    break;
+                }
+                if (!matchSegment(segments[pattIdxStart], path, bounds, pathIdxStart)) {
+                    return false;
+                }
+                pattIdxStart++;
+                pathIdxStart++;
+            }
+
+            if (pathIdxStart > pathIdxEnd) {
+                // Path is exhausted, only match if rest of pattern is * or **'s
+                if (pattIdxStart > pattIdxEnd) {
+                    return trailingSeparator == path.endsWith(SEPARATOR);
+                }
+                if (pattIdxStart == pattIdxEnd && isSingleWildcard(segments[pattIdxStart]) && path.endsWith(SEPARATOR)) {
+                    return true;
+                }
+                return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+            } else if (pattIdxStart > pattIdxEnd) {
+                // Path not exhausted, but pattern is
+                return false;
+            }
+
+            // Match all elements up to the last **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (doubleWildcards[pattIdxEnd]) {
+                    break;
+                }
+                if (!matchSegment(segments[pattIdxEnd], path, bounds, pathIdxEnd)) {
+                    return false;
+                }
+                pattIdxEnd--;
+                pathIdxEnd--;
+            }
+            if (pathIdxStart > pathIdxEnd) {
+                return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+            }
+
+            while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                    if (doubleWildcards[i]) {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == pattIdxStart + 1) {
+                    // '**/**' situation, so skip one
+                    pattIdxStart++;
+                    continue;
+                }
+                // Find the pattern between pattIdxStart & patIdxTmp in the path between pathIdxStart & pathIdxEnd
+                int patLength = patIdxTmp - pattIdxStart - 1;
+                int strLength = pathIdxEnd - pathIdxStart + 1;
+                int foundIdx = -1;
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        if (!matchSegment(segments[pattIdxStart + j + 1], path, bounds, pathIdxStart + i + j)) {
+                            continue strLoop;
+                        }
+                    }
+                    foundIdx = pathIdxStart + i;
+                    break;
+                }
+                if (foundIdx == -1) {
+                    return false;
+                }
+                pattIdxStart = patIdxTmp;
+                pathIdxStart = foundIdx + patLength;
+            }
+
+            return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+        }
+
+        private boolean onlyDoubleWildcards(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                if (!doubleWildcards[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isSingleWildcard(char[] segment) {
+            return segment.length == 1 && segment[0] == '*';
+        }
+
+        /**
+         * Glob match of a pattern segment against a path segment, '*' matching any run of characters and '?' a
+         * single one. Like the '.' of the regular expressions {@link AntPathMatcher} builds, neither matches a line
+         * terminator.
+         */
+        private static boolean matchSegment(char[] pattern, String path, int[] bounds, int segment) {
+            int s = bounds[segment * 2];
+            int end = bounds[segment * 2 + 1];
+            int p = 0;
+            int starP = -1;
+            int starS = -1;
+            while (s < end) {
+                char c = path.charAt(s);
+                if (p < pattern.length && (pattern[p] == '?' ? !isLineTerminator(c) : pattern[p] == c)) {
+                    p++;
+                    s++;
+                } else if (p < pattern.length && pattern[p] == '*') {
+                    starP = p++;
+                    starS = s;
+                } else if (starP != -1 && !isLineTerminator(path.charAt(starS))) {
+                    p = starP + 1;
+                    s = ++starS;
+                } else {
+                    return false;
+                }
+            }
+            while (p < pattern.length && pattern[p] == '*') {
+                p++;
+            }
+            return p == pattern.length;
+        }
+
+        private static boolean isLineTerminator(char c) {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+
+        /**
+         * Stores start and end of every non empty path segment in a reused per thread array, the number of segments
+         * being kept in its last slot. Trimmed segments drop the leading and trailing characters {@link String#trim()}
+         * drops, as {@link StringUtils#tokenizeToStringArray} does.
+         */
+        private static int[] segmentBounds(String path, boolean trimTokens) {
+            int[] bounds = SEGMENT_BOUNDS.get();
+            int count = 0;
+            int start = 0;
+            int length = path.length();
+            for (int i = 0; i <= length; i++) {
+                if (i == length || path.charAt(i) == '/') {
+                    int end = i;
+                    if (trimTokens) {
+                        while (start < end && path.charAt(start) <= ' ') {
+                            start++;
+                        }
+                        while (end > start && path.charAt(end - 1) <= ' ') {
+                            end--;
+                        }
+                    }
+                    if (end > start) {
+                        if (count * 2 + 2 >= bounds.length) {
+                            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                            SEGMENT_BOUNDS.set(bounds);
+                        }
+                        bounds[count * 2] = start;
+                        bounds[count * 2 + 1] = end;
+                        count++;
+                    }
+                    start = i + 1;
+                }
+            }
+            bounds[bounds.length - 1] = count;
+            return bounds;
+        }
+    }
+}
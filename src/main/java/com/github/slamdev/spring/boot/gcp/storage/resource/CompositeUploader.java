@@ -0,0 +1,292 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Uploads large writes as a parallel composite upload. The written bytes are split into parts of {@code partSize},
+ * each part is uploaded concurrently as a temporary object, and on close the parts are combined into the target
+ * object with {@link Storage#compose(Storage.ComposeRequest)} and deleted. Every part upload is retried on its own,
+ * and a failed part fails the next write instead of only the close. Writes that stay below a single part are
+ * streamed to the target directly, without temporary objects, and only hold as much memory as was written.
+ */
+public class CompositeUploader {
+
+    /**
+     * Maximum number of source objects of a single compose request.
+     */
+    static final int MAX_COMPOSE_SOURCES = 32;
+
+    /**
+     * Size the buffer of the first part starts with, it doubles up to the part size as bytes are written.
+     */
+    static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompositeUploader.class);
+
+    private final int partSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final ExecutorService executor;
+
+    public CompositeUploader(int partSize, int parallelism, int maxAttempts) {
+        if (partSize < 1 || parallelism < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Part size, parallelism and max attempts must be positive");
+        }
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcs-upload-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    /**
+     * Opens a channel that replaces the contents of the given object once it is closed.
+     */
+    public WritableByteChannel open(Storage storage, BlobInfo target) {
+        return new CompositeWriteChannel(storage, target);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class CompositeWriteChannel implements WritableByteChannel {
+
+        private final Storage storage;
+        private final BlobInfo target;
+        private final String partPrefix;
+        private final List<Future<BlobId>> parts = new ArrayList<>();
+        private final List<BlobId> temporaries = Collections.synchronizedList(new ArrayList<>());
+        private final Semaphore inFlight = new Semaphore(parallelism);
+        private volatile Exception failure;
+        private ByteBuffer buffer;
+        private boolean open = true;
+
+        private CompositeWriteChannel(Storage storage, BlobInfo target) {
+            this.storage = storage;
+            this.target = target;
+            this.partPrefix = target.getName() + ".part-" + UUID.randomUUID() + "-";
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (failure != null) {
+                throw new IOException("Failed to upload part of " + target.getBlobId(), failure);
+            }
+            int count = src.remaining();
+            while (src.hasRemaining()) {
+                if (buffer == null) {
+                    // Only the first part grows, once it is full the object is known to need all of them
+                    buffer = ByteBuffer.allocate(parts.isEmpty() ? Math.min(INITIAL_BUFFER_SIZE, partSize) : partSize);
+                } else if (!buffer.hasRemaining()) {
+                    buffer = grow(buffer);
+                }
+                int length = Math.min(buffer.remaining(), src.remaining());
+                ByteBuffer slice = src.duplicate();
+                slice.limit(slice.position() + length);
+                buffer.put(slice);
+                src.position(src.position() + length);
+                if (buffer.position() == partSize) {
+                    submitPart();
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!open) {
+                return;
+            }
+            open = false;
+            try {
+                if (parts.isEmpty()) {
+                    ByteBuffer content = buffer == null ? ByteBuffer.allocate(0) : buffer;
+                    content.flip();
+                    retry(() -> upload(target, content.duplicate()));
+                    return;
+                }
+                if (buffer != null && buffer.position() > 0) {
+                    submitPart();
+                }
+                List<BlobId> uploaded = new ArrayList<>();
+                for (Future<BlobId> part : parts) {
+                    uploaded.add(await(part));
+                }
+                compose(uploaded);
+            } finally {
+                buffer = null;
+                awaitQuietly();
+                deleteTemporaries();
+            }
+        }
+
+        private void submitPart() throws IOException {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while uploading " + target.getBlobId());
+            }
+            BlobInfo part = BlobInfo.newBuilder(target.getBucket(), partPrefix + parts.size()).build();
+            ByteBuffer content = buffer;
+            content.flip();
+            buffer = null;
+            try {
+                parts.add(executor.submit(() -> {
+                    try {
+                        BlobId id = retry(() -> upload(part, content.duplicate()));
+                        temporaries.add(id);
+                        return id;
+                    } catch (IOException | RuntimeException e) {
+                        failure = e;
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Streams the content through a resumable upload, so it is sent in chunks and interrupted chunks are
+         * resumed by the client library.
+         */
+        private BlobId upload(BlobInfo info, ByteBuffer content) throws IOException {
+            try (WriteChannel writer = storage.writer(info)) {
+                while (content.hasRemaining()) {
+                    writer.write(content);
+                }
+            }
+            return info.getBlobId();
+        }
+
+        /**
+         * Composes the parts into the target object. Compose accepts a limited number of sources, so larger uploads
+         * are composed in several rounds, the intermediate objects being deleted with the parts.
+         */
+        private void compose(List<BlobId> uploaded) throws IOException {
+            List<String> sources = new ArrayList<>();
+            uploaded.forEach(id -> sources.add(id.getName()));
+            int round = 0;
+            while (sources.size() > MAX_COMPOSE_SOURCES) {
+                List<String> composed = new ArrayList<>();
+                for (int i = 0; i < sources.size(); i += MAX_COMPOSE_SOURCES) {
+                    List<String> group = sources.subList(i, Math.min(i + MAX_COMPOSE_SOURCES, sources.size()));
+                    BlobInfo intermediate = BlobInfo.newBuilder(target.getBucket(),
+                            partPrefix + "compose-" + round + "-" + composed.size()).build();
+                    retry(() -> storage.compose(Storage.ComposeRequest.newBuilder()
+                            .addSource(group).setTarget(intermediate).build()));
+                    temporaries.add(intermediate.getBlobId());
+                    composed.add(intermediate.getName());
+                }
+                sources.clear();
+                sources.addAll(composed);
+                round++;
+            }
+            retry(() -> storage.compose(Storage.ComposeRequest.newBuilder().addSource(sources).setTarget(target).build()));
+        }
+
+        private void deleteTemporaries() {
+            List<BlobId> ids;
+            synchronized (temporaries) {
+                ids = new ArrayList<>(temporaries);
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            try {
+                storage.delete(ids);
+            } catch (StorageException e) {
+                LOGGER.warn("Failed to delete temporary parts of {}", target.getBlobId(), e);
+            }
+        }
+
+        private <T> T retry(Upload<T> call) throws IOException {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return call.run();
+                } catch (StorageException e) {
+                    if (attempt >= maxAttempts || !e.isRetryable()) {
+                        throw e;
+                    }
+                    LOGGER.debug("Retrying upload of {} after attempt {} failed", target.getBlobId(), attempt, e);
+                }
+            }
+        }
+
+        /**
+         * Waits for the part uploads that are still running after a failure, so their temporary objects are known
+         * and deleted as well.
+         */
+        private void awaitQuietly() {
+            for (Future<BlobId> part : parts) {
+                try {
+                    part.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException | CancellationException e) {
+                    // The failure is reported by close()
+                }
+            }
+        }
+
+        private BlobId await(Future<BlobId> part) throws IOException {
+            try {
+                return part.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while uploading " + target.getBlobId());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Failed to upload part of " + target.getBlobId(), e.getCause());
+            }
+        }
+    }
+
+    private ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate((int) Math.min(buffer.capacity() * 2L, partSize));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    @FunctionalInterface
+    private interface Upload<T> {
+
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs list calls of a single pattern resolution on an {@link Executor} with at most {@code parallelism} calls
+ * in flight. Tasks never wait for each other, they only submit follow-up tasks (e.g. sibling prefixes found during
+ * traversal), so a bounded executor can not deadlock. The first failure cancels all tasks that did not start yet
+ * and is rethrown by {@link #await()}.
+ * <p>
+ * Dispatching is a loop that is never re-entered on the same thread, so an executor running tasks on the calling
+ * thread processes any number of follow-up tasks without growing the stack.
+ */
+final class ListingTasks {
+
+    private final Executor executor;
+    private final int parallelism;
+    private final Queue<Runnable> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AtomicInteger listCalls = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final ThreadLocal<Boolean> dispatching = new ThreadLocal<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    ListingTasks(Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    void submit(Runnable task) {
+        pending.incrementAndGet();
+        queued.add(task);
+        dispatch();
+    }
+
+    /**
+     * Waits until all submitted tasks, including the ones submitted by other tasks, are completed.
+     */
+    void await() {
+        complete();
+        completion.join();
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Records a list call made by one of the tasks.
+     */
+    void countListCall() {
+        listCalls.incrementAndGet();
+    }
+
+    int getListCalls() {
+        return listCalls.get();
+    }
+
+    /**
+     * Returns immediately when called from a task run by the dispatch loop of the same thread, the loop picks up the
+     * tasks queued meanwhile once the task returns.
+     */
+    private void dispatch() {
+        if (dispatching.get() != null) {
+            return;
+        }
+        dispatching.set(Boolean.TRUE);
+        try {
+            drain();
+        } finally {
+            dispatching.remove();
+        }
+    }
+
+    private void drain() {
+        while (!queued.isEmpty()) {
+            int current = running.get();
+            if (current >= parallelism) {
+                return;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = queued.poll();
+            if (task == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(() -> run(task));
+            } catch (RuntimeException e) {
+                fail(e);
+                running.decrementAndGet();
+                complete();
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            if (failure.get() == null) {
+                task.run();
+            }
+        } catch (Throwable e) {
+            // Errors are recorded as well, so waiters never see a partial result as a successful one
+            fail(e);
+        } finally {
+            running.decrementAndGet();
+            complete();
+            dispatch();
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (!failure.compareAndSet(null, e) && failure.get() != e) {
+            failure.get().addSuppressed(e);
+        }
+    }
+
+    private void complete() {
+        if (pending.decrementAndGet() == 0) {
+            completion.complete(null);
+        }
+    }
+}
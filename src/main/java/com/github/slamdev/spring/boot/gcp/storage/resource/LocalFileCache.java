@@ -0,0 +1,259 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Blob;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Read-through cache of object contents in a local directory. Every object version is stored in its own file named
+ * after the object and its generation, so a changed object is never served from a stale file. Downloads are verified
+ * against the crc32c checksum of the object and moved into place atomically, which keeps the directory consistent
+ * when several JVMs share it. Once the directory grows over {@code maxSizeBytes} the least recently used files are
+ * evicted under a directory wide file lock. File locks are held by the whole JVM, so caches of the same JVM sharing
+ * a directory also evict under a common in-process lock. Files used within the last {@value #EVICTION_GRACE_MILLIS} ms are never
+ * evicted, so reads in flight keep their files and the directory may exceed its size for that long.
+ */
+public class LocalFileCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalFileCache.class);
+    private static final String LOCK_FILE = ".lock";
+    private static final String TEMP_FILE_PREFIX = ".download-";
+    private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final int BUFFER_SIZE = 2 * 1024 * 1024;
+    private static final int LOCK_STRIPES = 64;
+    private static final long EVICTION_GRACE_MILLIS = 10_000;
+    private static final ConcurrentMap<Path, Object> EVICTION_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object evictionLock;
+
+    public LocalFileCache(Path directory, long maxSizeBytes) {
+        if (maxSizeBytes < 1) {
+            throw new IllegalArgumentException("Max size must be positive");
+        }
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            Files.createDirectories(directory);
+            this.evictionLock = EVICTION_LOCKS.computeIfAbsent(directory.toRealPath(), d -> new Object());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can not create local cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * Objects larger than the cache itself are streamed from the storage instead.
+     */
+    public boolean isCacheable(Blob blob) {
+        return blob.getGeneration() != null && blob.getSize() != null && blob.getSize() <= maxSizeBytes;
+    }
+
+    /**
+     * Returns the cached file of the given object version, downloading it first from the given source when it is
+     * not cached yet. The returned file is the most recently used one, so it is never evicted by its own download.
+     */
+    public Path get(Blob blob, Supplier<ReadableByteChannel> source) throws IOException {
+        Path file = directory.resolve(fileName(blob));
+        synchronized (locks[Math.floorMod(file.hashCode(), locks.length)]) {
+            if (touch(file)) {
+                return file;
+            }
+            download(blob, source, file);
+        }
+        evict(file);
+        return file;
+    }
+
+    /**
+     * Opens the cached file of the given object version, downloading it first when it is not cached yet. An open
+     * channel keeps reading the file even when it is evicted afterwards. A file evicted by another process between
+     * its download and opening is downloaded once more.
+     */
+    public FileChannel openChannel(Blob blob, Supplier<ReadableByteChannel> source) throws IOException {
+        try {
+            return FileChannel.open(get(blob, source), READ);
+        } catch (NoSuchFileException e) {
+            LOGGER.debug("Local cache file of {} was evicted before it was opened, downloading it again",
+                    blob.getBlobId());
+            return FileChannel.open(get(blob, source), READ);
+        }
+    }
+
+    /**
+     * Opens the cached file like {@link #openChannel}, memory mapped when it fits into a single buffer.
+     */
+    public InputStream openStream(Blob blob, Supplier<ReadableByteChannel> source) throws IOException {
+        FileChannel channel = openChannel(blob, source);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return Channels.newInputStream(channel);
+            }
+            try (FileChannel mapped = channel) {
+                return new MappedInputStream(mapped.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void download(Blob blob, Supplier<ReadableByteChannel> source, Path file) throws IOException {
+        LOGGER.debug("Downloading {} to local cache file {}", blob.getBlobId(), file);
+        Path temp = Files.createTempFile(directory, TEMP_FILE_PREFIX, ".tmp");
+        try {
+            Hasher hasher = Hashing.crc32c().newHasher();
+            try (ReadableByteChannel reader = source.get();
+                 FileChannel out = FileChannel.open(temp, WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                while (reader.read(buffer) >= 0) {
+                    buffer.flip();
+                    hasher.putBytes(buffer.array(), buffer.position(), buffer.remaining());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            verify(blob, hasher.hash().asInt());
+            Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void verify(Blob blob, int crc32c) throws IOException {
+        if (blob.getCrc32c() == null) {
+            return;
+        }
+        int expected = ByteBuffer.wrap(Base64.getDecoder().decode(blob.getCrc32c())).getInt();
+        if (expected != crc32c) {
+            throw new IOException("Checksum mismatch while downloading " + blob.getBlobId() + " to local cache");
+        }
+    }
+
+    private static boolean touch(Path file) throws IOException {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void evict(Path keep) throws IOException {
+        synchronized (evictionLock) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), CREATE, WRITE);
+                 FileLock ignored = channel.lock()) {
+                evictOverSize(keep);
+            } catch (OverlappingFileLockException e) {
+                // Held by a cache of another class loader in this JVM, which evicts the directory itself
+                LOGGER.debug("Skipping eviction of local cache directory {} locked by this JVM", directory);
+            }
+        }
+    }
+
+    private void evictOverSize(Path keep) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long totalSize = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Entry entry = Entry.of(path);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.isStaleTempFile()) {
+                    Files.deleteIfExists(path);
+                } else if (!entry.isHidden()) {
+                    entries.add(entry);
+                    totalSize += entry.size;
+                }
+            }
+        }
+        entries.sort(comparingLong(e -> e.lastModified));
+        long usedSince = System.currentTimeMillis() - EVICTION_GRACE_MILLIS;
+        for (Entry entry : entries) {
+            if (totalSize <= maxSizeBytes || entry.lastModified >= usedSince) {
+                // Entries are sorted by last use, all remaining ones are used recently
+                break;
+            }
+            if (!entry.path.equals(keep)) {
+                LOGGER.debug("Evicting local cache file {}", entry.path);
+                Files.deleteIfExists(entry.path);
+                totalSize -= entry.size;
+            }
+        }
+    }
+
+    private static String fileName(Blob blob) {
+        String key = blob.getBucket() + "/" + blob.getName();
+        return Hashing.sha256().hashString(key, UTF_8).toString() + "-" + blob.getGeneration();
+    }
+
+    private static final class Entry {
+
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        private Entry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private static Entry of(Path path) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new Entry(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        private boolean isHidden() {
+            return path.getFileName().toString().startsWith(".");
+        }
+
+        private boolean isStaleTempFile() {
+            return path.getFileName().toString().startsWith(TEMP_FILE_PREFIX)
+                    && System.currentTimeMillis() - lastModified > STALE_TEMP_FILE_MILLIS;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.StorageException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Wraps object contents so the number of transferred bytes, the duration and failures are reported to a
+ * {@link StorageMetricsListener} once the contents are closed.
+ */
+final class MeteredChannels {
+
+    static final String READ = "read";
+    static final String WRITE = "write";
+
+    private MeteredChannels() {
+        // Utility class
+    }
+
+    static ReadableByteChannel metered(ReadableByteChannel channel, StorageMetricsListener listener) {
+        long start = System.nanoTime();
+        return new ReadableByteChannel() {
+
+            private long count;
+            private boolean failed;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                try {
+                    int read = channel.read(dst);
+                    if (read > 0) {
+                        count += read;
+                    }
+                    return read;
+                } catch (IOException | RuntimeException e) {
+                    if (!failed) {
+                        failed = true;
+                        listener.onError(READ, codeOf(e));
+                    }
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                boolean wasOpen = channel.isOpen();
+                channel.close();
+                if (wasOpen && !failed) {
+                    listener.onRead(count, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static InputStream metered(InputStream stream, StorageMetricsListener listener) {
+        long start = System.nanoTime();
+        return new FilterInputStream(stream) {
+
+            private long count;
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    count++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    count += read;
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                count += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                if (!closed) {
+                    closed = true;
+                    listener.onRead(count, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    static int codeOf(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StorageException) {
+                return ((StorageException) cause).getCode();
+            }
+        }
+        return 0;
+    }
+}
@@ -2,14 +2,15 @@ package com.github.slamdev.spring.boot.gcp.storage.resource;
 
 import org.springframework.util.Assert;
 
-import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
 final class NameUtils {
 
+    static final String VERSION_DELIMITER = "^";
+
     private static final String PROTOCOL_PREFIX = "gcs://";
     private static final String PATH_DELIMITER = "/";
-    private static final String VERSION_DELIMITER = "^";
+    private static final String MAX_GENERATION = String.valueOf(Long.MAX_VALUE);
 
     private NameUtils() {
         // Utility class
@@ -17,10 +18,14 @@ final class NameUtils {
 
     static boolean isStorageResource(String location) {
         requireNonNull(location, "Location must not be null");
-        return location.toLowerCase(ENGLISH).startsWith(PROTOCOL_PREFIX);
+        return location.regionMatches(true, 0, PROTOCOL_PREFIX, 0, PROTOCOL_PREFIX.length());
     }
 
-    static String getBucketNameFromLocation(String location) {
+    /**
+     * Parses the location in a single pass, without lower casing or re-validating it per part. Only an all digits
+     * suffix after the last {@code ^} is taken as the generation, any other {@code ^} is part of the object name.
+     */
+    static StorageLocation parseLocation(String location) {
         requireNonNull(location, "Location must not be null");
         if (!isStorageResource(location)) {
             throw new IllegalArgumentException("The location :'" + location + "' is not a valid GCE location");
@@ -29,25 +34,36 @@ final class NameUtils {
         if (bucketEndIndex == -1 || bucketEndIndex == PROTOCOL_PREFIX.length()) {
             throw new IllegalArgumentException("The location :'" + location + "' does not contain a valid bucket name");
         }
-        return location.substring(PROTOCOL_PREFIX.length(), bucketEndIndex);
-    }
-
-    static String getObjectNameFromLocation(String location) {
-        requireNonNull(location, "Location must not be null");
-        if (!isStorageResource(location)) {
-            throw new IllegalArgumentException("The location :'" + location + "' is not a valid GCE location");
+        int objectEndIndex = location.lastIndexOf(VERSION_DELIMITER);
+        Long generation = null;
+        if (objectEndIndex > bucketEndIndex && isGeneration(location, objectEndIndex + 1)) {
+            generation = Long.parseLong(location.substring(objectEndIndex + 1));
+        } else {
+            objectEndIndex = location.length();
         }
-        int bucketEndIndex = location.indexOf(PATH_DELIMITER, PROTOCOL_PREFIX.length());
-        if (bucketEndIndex == -1 || bucketEndIndex == PROTOCOL_PREFIX.length()) {
-            throw new IllegalArgumentException("The location :'" + location + "' does not contain a valid bucket name");
+        if (objectEndIndex > bucketEndIndex + 1 && location.charAt(objectEndIndex - 1) == '/') {
+            objectEndIndex--;
         }
-        if (location.contains(VERSION_DELIMITER)) {
-            return getObjectNameFromLocation(location.substring(0, location.indexOf(VERSION_DELIMITER)));
+        return new StorageLocation(location.substring(PROTOCOL_PREFIX.length(), bucketEndIndex),
+                location.substring(bucketEndIndex + 1, objectEndIndex), generation);
+    }
+
+    /**
+     * Generations are positive 64 bit numbers, so at most 19 digits.
+     */
+    private static boolean isGeneration(String location, int beginIndex) {
+        int length = location.length() - beginIndex;
+        if (length < 1 || length > MAX_GENERATION.length()) {
+            return false;
         }
-        if (location.endsWith(PATH_DELIMITER)) {
-            return location.substring(++bucketEndIndex, location.length() - 1);
+        for (int i = beginIndex; i < location.length(); i++) {
+            char c = location.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
         }
-        return location.substring(++bucketEndIndex, location.length());
+        // Digit strings of the same length compare like the numbers they represent
+        return length < MAX_GENERATION.length() || location.substring(beginIndex).compareTo(MAX_GENERATION) <= 0;
     }
 
     static String stripProtocol(String location) {
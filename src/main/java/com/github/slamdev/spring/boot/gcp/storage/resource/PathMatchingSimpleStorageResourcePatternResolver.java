@@ -2,7 +2,6 @@ package com.github.slamdev.spring.boot.gcp.storage.resource;
 
 import com.google.api.gax.paging.Page;
 import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.Bucket;
 import com.google.cloud.storage.Storage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,10 +14,17 @@ import org.springframework.util.PathMatcher;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 
 public class PathMatchingSimpleStorageResourcePatternResolver implements ResourcePatternResolver {
 
@@ -26,7 +32,11 @@ public class PathMatchingSimpleStorageResourcePatternResolver implements Resourc
     private final Storage storage;
     private final ResourceLoader simpleStorageResourceLoader;
     private final ResourcePatternResolver resourcePatternResolverDelegate;
-    private PathMatcher pathMatcher = new AntPathMatcher();
+    private PathMatcher pathMatcher = new CompiledAntPathMatcher();
+    private Executor listingExecutor = Runnable::run;
+    private int listingParallelism = 1;
+    private BucketNameCache bucketNameCache;
+    private StorageMetricsListener metricsListener;
 
     /**
      * Construct a new instance of the {@link PathMatchingSimpleStorageResourcePatternResolver} with a
@@ -42,16 +52,55 @@ public class PathMatchingSimpleStorageResourcePatternResolver implements Resourc
 
     /**
      * Set the PathMatcher implementation to use for this
-     * resource pattern resolver. Default is AntPathMatcher.
+     * resource pattern resolver. Default is CompiledAntPathMatcher.
      *
      * @param pathMatcher The pathMatches implementation used, must not be null
      * @see AntPathMatcher
+     * @see CompiledAntPathMatcher
      */
     public void setPathMatcher(PathMatcher pathMatcher) {
         Assert.notNull(pathMatcher, "PathMatcher must not be null");
         this.pathMatcher = pathMatcher;
     }
 
+    /**
+     * Set the executor that runs list calls across buckets and sibling prefixes. Default is the calling thread.
+     *
+     * @param listingExecutor The executor used for list calls, must not be null
+     */
+    public void setListingExecutor(Executor listingExecutor) {
+        Assert.notNull(listingExecutor, "Listing executor must not be null");
+        this.listingExecutor = listingExecutor;
+    }
+
+    /**
+     * Set the maximum number of list calls a single resolution keeps in flight. Default is 1.
+     *
+     * @param listingParallelism The maximum number of concurrent list calls, must be positive
+     */
+    public void setListingParallelism(int listingParallelism) {
+        Assert.isTrue(listingParallelism > 0, "Listing parallelism must be positive");
+        this.listingParallelism = listingParallelism;
+    }
+
+    /**
+     * Set the cache of bucket names used to resolve bucket wildcards. Default is no cache, so every resolution
+     * lists the buckets matching the literal prefix of the pattern.
+     *
+     * @param bucketNameCache The bucket name cache, may be null
+     */
+    public void setBucketNameCache(BucketNameCache bucketNameCache) {
+        this.bucketNameCache = bucketNameCache;
+    }
+
+    /**
+     * Set the listener receiving the number of list calls and the duration of every pattern resolution. Default is no
+     * listener.
+     */
+    public void setMetricsListener(StorageMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     @Override
     public Resource[] getResources(String locationPattern) throws IOException {
         if (NameUtils.isStorageResource(locationPattern)) {
@@ -66,11 +115,66 @@ public class PathMatchingSimpleStorageResourcePatternResolver implements Resourc
         }
     }
 
+    /**
+     * Resolves the given location pattern as a stream. Gcs location patterns are resolved lazily as described in
+     * {@link #streamStorageResources(String)}, any other pattern is resolved by the delegate resolver.
+     *
+     * @param locationPattern The location pattern to resolve
+     * @return The stream of matching resources, closing it cancels an outstanding page prefetch
+     */
+    public Stream<Resource> streamResources(String locationPattern) {
+        if (NameUtils.isStorageResource(locationPattern)) {
+            return streamStorageResources(locationPattern).map(r -> r);
+        }
+        try {
+            return Arrays.stream(this.resourcePatternResolverDelegate.getResources(locationPattern));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resolves the given gcs location pattern lazily. List pages are requested while the stream is consumed, the next
+     * page being prefetched on the listing executor, and objects are filtered as each page arrives, so only a couple
+     * of pages are held in memory at once no matter how many objects match.
+     * WARNING: Objects are not returned in any particular order.
+     *
+     * @param locationPattern The gcs location pattern to resolve
+     * @return The stream of matching resources, closing it cancels an outstanding page prefetch
+     */
+    public Stream<StorageResource> streamStorageResources(String locationPattern) {
+        Assert.isTrue(NameUtils.isStorageResource(locationPattern), "Location pattern must be a gcs location");
+        if (!this.pathMatcher.isPattern(NameUtils.stripProtocol(locationPattern))) {
+            return Stream.of(getStorageResource(locationPattern));
+        }
+        StorageLocation location = NameUtils.parseLocation(locationPattern);
+        String bucketPattern = location.getBucketName();
+        String keyPattern = location.getObjectName();
+        List<String> matchingBuckets;
+        if (this.pathMatcher.isPattern(bucketPattern)) {
+            matchingBuckets = findMatchingBuckets(bucketPattern);
+            if (bucketPattern.startsWith("**")) {
+                keyPattern = "**/" + keyPattern;
+            }
+        } else {
+            matchingBuckets = Collections.singletonList(bucketPattern);
+        }
+        if (!this.pathMatcher.isPattern(keyPattern)) {
+            String key = keyPattern;
+            return matchingBuckets.stream()
+                    .map(b -> getStorageResource(NameUtils.getLocationForBucketAndObject(b, key)))
+                    .filter(StorageResource::exists);
+        }
+        LazyListing listing = new LazyListing(matchingBuckets, keyPattern);
+        return StreamSupport.stream(listing, false).onClose(listing::cancel);
+    }
+
     @SuppressWarnings("PMD.UseStringBufferForStringAppends")
     protected Resource[] findPathMatchingResources(String locationPattern) {
         // Separate the bucket and key patterns as each one uses a different gcs API for resolving.
-        String bucketPattern = NameUtils.getBucketNameFromLocation(locationPattern);
-        String keyPattern = NameUtils.getObjectNameFromLocation(locationPattern);
+        StorageLocation location = NameUtils.parseLocation(locationPattern);
+        String bucketPattern = location.getBucketName();
+        String keyPattern = location.getObjectName();
         Set<Resource> resources;
         if (this.pathMatcher.isPattern(bucketPattern)) {
             List<String> matchingBuckets = findMatchingBuckets(bucketPattern);
@@ -94,46 +198,94 @@ public class PathMatchingSimpleStorageResourcePatternResolver implements Resourc
     }
 
     private Set<Resource> findPathMatchingKeys(String keyPattern, List<String> matchingBuckets) {
-        Set<Resource> resources = new HashSet<>();
+        long start = System.nanoTime();
+        Set<Resource> resources = ConcurrentHashMap.newKeySet();
+        ListingTasks tasks = new ListingTasks(this.listingExecutor, this.listingParallelism);
         if (this.pathMatcher.isPattern(keyPattern)) {
             for (String bucketName : matchingBuckets) {
-                findPathMatchingKeyInBucket(bucketName, resources, null, keyPattern);
+                tasks.submit(() -> findPathMatchingKeyInBucket(tasks, bucketName, resources, null, keyPattern));
             }
         } else {
             for (String matchingBucket : matchingBuckets) {
-                Resource resource = this.simpleStorageResourceLoader.getResource(NameUtils.getLocationForBucketAndObject(matchingBucket, keyPattern));
-                if (resource.exists()) {
-                    resources.add(resource);
-                }
+                tasks.submit(() -> {
+                    Resource resource = this.simpleStorageResourceLoader.getResource(NameUtils.getLocationForBucketAndObject(matchingBucket, keyPattern));
+                    if (resource.exists()) {
+                        resources.add(resource);
+                    }
+                });
+            }
+        }
+        try {
+            tasks.await();
+        } finally {
+            if (this.metricsListener != null) {
+                this.metricsListener.onResolve(tasks.getListCalls(), System.nanoTime() - start);
             }
         }
         return resources;
     }
 
-    private void findPathMatchingKeyInBucket(String bucketName, Set<Resource> resources, String prefix, String keyPattern) {
+    private void findPathMatchingKeyInBucket(ListingTasks tasks, String bucketName, Set<Resource> resources, String prefix, String keyPattern) {
+        Page<Blob> page = listLevel(bucketName, prefix, keyPattern);
+        while (page != null) {
+            tasks.countListCall();
+            for (Blob blob : page.getValues()) {
+                if (blob.isDirectory()) {
+                    if (pathMatcher.matchStart(keyPattern, blob.getName())) {
+                        tasks.submit(() -> findPathMatchingKeyInBucket(tasks, bucketName, resources, blob.getName(), keyPattern));
+                    }
+                } else if (pathMatcher.match(keyPattern, blob.getName())) {
+                    resources.add(toResource(bucketName, blob));
+                }
+            }
+            page = page.hasNextPage() ? page.getNextPage() : null;
+        }
+    }
+
+    private Page<Blob> listLevel(String bucketName, String prefix, String keyPattern) {
         String remainingPatternPart = getRemainingPatternPart(keyPattern, prefix);
-        if (remainingPatternPart != null && remainingPatternPart.startsWith("**")) {
-            findAllResourcesThatMatches(bucketName, resources, prefix, keyPattern);
+        if (remainingPatternPart == null || remainingPatternPart.startsWith("**")) {
+            return findAllResourcesThatMatches(bucketName, prefix);
         } else {
-            findProgressivelyWithPartialMatch(bucketName, resources, prefix, keyPattern);
+            return findProgressivelyWithPartialMatch(bucketName, prefix, remainingPatternPart);
         }
     }
 
-    private void findAllResourcesThatMatches(String bucketName, Set<Resource> resources, String prefix, String keyPattern) {
-        Page<Blob> page = prefix == null ? storage.list(bucketName) : storage.list(bucketName, Storage.BlobListOption.prefix(prefix));
-        List<Blob> blobs = new ArrayList<>();
-        page.iterateAll().forEach(blobs::add);
-        resources.addAll(getResourcesFromObjectSummaries(bucketName, keyPattern, blobs));
+    private Page<Blob> findAllResourcesThatMatches(String bucketName, String prefix) {
+        return prefix == null ? storage.list(bucketName) : storage.list(bucketName, Storage.BlobListOption.prefix(prefix));
     }
 
     /**
      * Searches for matching keys progressively. This means that instead of retrieving all keys given a prefix, it goes
      * down one level at a time and filters out all non-matching results. This avoids a lot of unused requests results.
-     * WARNING: This method does not truncate results. Therefore all matching resources will be returned regardless of
-     * the truncation.
+     * The returned page contains the objects of the current level and its sub-directories, the caller descends into
+     * the sub-directories that can still match the pattern.
+     * Leading literal segments of the remaining pattern are appended to the prefix directly, so they do not cost
+     * a list call of their own.
      */
-    private void findProgressivelyWithPartialMatch(String bucketName, Set<Resource> resources, String prefix, String keyPattern) {
-        findAllResourcesThatMatches(bucketName, resources, prefix, keyPattern);
+    private Page<Blob> findProgressivelyWithPartialMatch(String bucketName, String prefix, String remainingPatternPart) {
+        String levelPrefix = appendLiteralSegments(prefix, remainingPatternPart);
+        return levelPrefix == null
+                ? storage.list(bucketName, Storage.BlobListOption.currentDirectory())
+                : storage.list(bucketName, Storage.BlobListOption.currentDirectory(), Storage.BlobListOption.prefix(levelPrefix));
+    }
+
+    private String appendLiteralSegments(String prefix, String remainingPatternPart) {
+        int literalEnd = 0;
+        for (int i = 0; i < remainingPatternPart.length(); i++) {
+            char c = remainingPatternPart.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                break;
+            }
+            if (c == '/') {
+                literalEnd = i + 1;
+            }
+        }
+        if (literalEnd == 0) {
+            return prefix;
+        }
+        String literal = remainingPatternPart.substring(0, literalEnd);
+        return prefix == null ? literal : prefix + literal;
     }
 
     private String getRemainingPatternPart(String keyPattern, String path) {
@@ -157,25 +309,151 @@ public class PathMatchingSimpleStorageResourcePatternResolver implements Resourc
         return result;
     }
 
-    private Set<Resource> getResourcesFromObjectSummaries(String bucketName, String keyPattern, List<Blob> objectSummaries) {
-        return objectSummaries.stream()
-                .filter(b -> pathMatcher.match(keyPattern, b.getName()))
-                .map(b -> NameUtils.getLocationForBucketAndObject(bucketName, b.getName()))
-                .map(simpleStorageResourceLoader::getResource)
-                .filter(Resource::exists)
-                .collect(toSet());
+    /**
+     * Listed objects are known to exist, so the metadata from the list call is reused instead of
+     * fetching it again for every matched object.
+     */
+    private Resource toResource(String bucketName, Blob blob) {
+        if (this.simpleStorageResourceLoader instanceof SimpleStorageResourceLoader) {
+            return ((SimpleStorageResourceLoader) this.simpleStorageResourceLoader).getResource(blob);
+        }
+        return this.simpleStorageResourceLoader.getResource(NameUtils.getLocationForBucketAndObject(bucketName, blob.getName()));
     }
 
+    private StorageResource toStorageResource(String bucketName, Blob blob) {
+        if (this.simpleStorageResourceLoader instanceof SimpleStorageResourceLoader) {
+            return ((SimpleStorageResourceLoader) this.simpleStorageResourceLoader).getResource(blob);
+        }
+        return getStorageResource(NameUtils.getLocationForBucketAndObject(bucketName, blob.getName()));
+    }
+
+    private StorageResource getStorageResource(String location) {
+        Resource resource = this.simpleStorageResourceLoader.getResource(location);
+        Assert.isInstanceOf(StorageResource.class, resource, "Resource loader must return storage resources for gcs locations");
+        return (StorageResource) resource;
+    }
+
+    /**
+     * Lists only the buckets starting with the literal part of the pattern, through the bucket name cache when
+     * one is configured.
+     */
     private List<String> findMatchingBuckets(String bucketPattern) {
-        List<Bucket> buckets = new ArrayList<>();
-        Page<Bucket> page = storage.list();
-        page.iterateAll().forEach(buckets::add);
-        return buckets.stream()
-                .map(Bucket::getName)
+        String prefix = getLiteralPrefix(bucketPattern);
+        Collection<String> bucketNames = this.bucketNameCache == null
+                ? BucketNameCache.listBucketNames(storage, prefix)
+                : this.bucketNameCache.getBucketNames(prefix);
+        return bucketNames.stream()
                 .filter(n -> pathMatcher.match(bucketPattern, n))
                 .collect(toList());
     }
 
+    private static String getLiteralPrefix(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return pattern.substring(0, i);
+            }
+        }
+        return pattern;
+    }
+
+    private static final class Level {
+
+        private final String bucketName;
+        private final String prefix;
+
+        private Level(String bucketName, String prefix) {
+            this.bucketName = bucketName;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Depth-first traversal over the bucket levels that pulls one list page at a time.
+     */
+    private final class LazyListing extends Spliterators.AbstractSpliterator<StorageResource> {
+
+        private final String keyPattern;
+        private final Deque<Level> levels = new ArrayDeque<>();
+        private final List<Level> children = new ArrayList<>();
+        private final long start = System.nanoTime();
+        private Level level;
+        private Iterator<Blob> blobs = Collections.emptyIterator();
+        private CompletableFuture<Page<Blob>> nextPage;
+        private int listCalls;
+        private boolean reported;
+
+        private LazyListing(List<String> bucketNames, String keyPattern) {
+            super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.keyPattern = keyPattern;
+            bucketNames.forEach(b -> levels.add(new Level(b, null)));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super StorageResource> action) {
+            while (true) {
+                while (blobs.hasNext()) {
+                    Blob blob = blobs.next();
+                    if (blob.isDirectory()) {
+                        if (pathMatcher.matchStart(keyPattern, blob.getName())) {
+                            children.add(new Level(level.bucketName, blob.getName()));
+                        }
+                    } else if (pathMatcher.match(keyPattern, blob.getName())) {
+                        action.accept(toStorageResource(level.bucketName, blob));
+                        return true;
+                    }
+                }
+                if (nextPage != null) {
+                    startPage(awaitNextPage());
+                    continue;
+                }
+                // Children are pushed in reverse so the sub-directories are visited in listing order
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    levels.push(children.get(i));
+                }
+                children.clear();
+                level = levels.poll();
+                if (level == null) {
+                    report();
+                    return false;
+                }
+                startPage(listLevel(level.bucketName, level.prefix, keyPattern));
+            }
+        }
+
+        private void startPage(Page<Blob> page) {
+            listCalls++;
+            blobs = page.getValues().iterator();
+            nextPage = page.hasNextPage() ? CompletableFuture.supplyAsync(page::getNextPage, listingExecutor) : null;
+        }
+
+        private Page<Blob> awaitNextPage() {
+            try {
+                return nextPage.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        private void cancel() {
+            if (nextPage != null) {
+                nextPage.cancel(false);
+            }
+            levels.clear();
+            report();
+        }
+
+        private void report() {
+            if (!reported && metricsListener != null) {
+                reported = true;
+                metricsListener.onResolve(listCalls, System.nanoTime() - start);
+            }
+        }
+    }
+
     @Override
     public Resource getResource(String location) {
         return this.simpleStorageResourceLoader.getResource(location);
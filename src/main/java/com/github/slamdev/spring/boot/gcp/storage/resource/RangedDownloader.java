@@ -0,0 +1,182 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * Downloads large objects as several byte ranges in parallel. Each range is read by its own {@link ReadChannel}
+ * positioned with {@link ReadChannel#seek(long)} into a buffer of the range size, and the ranges are handed out in
+ * order through a {@link ReadableByteChannel}. At most {@code parallelism} ranges of a download are fetched or
+ * buffered at once, so memory stays bounded by {@code parallelism * rangeSize} per download. A range failing with a
+ * retryable error is read again from its start, up to {@code maxAttempts} times, without restarting the others.
+ */
+public class RangedDownloader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RangedDownloader.class);
+
+    private final long threshold;
+    private final int rangeSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final ExecutorService executor;
+
+    public RangedDownloader(long threshold, int rangeSize, int parallelism, int maxAttempts) {
+        if (rangeSize < 1 || parallelism < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Range size, parallelism and max attempts must be positive");
+        }
+        this.threshold = threshold;
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcs-download-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    /**
+     * Objects below the threshold are read with a single stream, as splitting them would only add requests.
+     */
+    public boolean isApplicable(Blob blob) {
+        return blob.getSize() != null && blob.getSize() >= threshold && blob.getSize() > rangeSize;
+    }
+
+    /**
+     * Opens a channel over the object version described by the given metadata, so all ranges read the same data
+     * even when the object is overwritten during the download.
+     */
+    public ReadableByteChannel open(Storage storage, Blob blob) {
+        return new RangedReadChannel(storage, blob.getBlobId(), blob.getSize());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private final class RangedReadChannel implements ReadableByteChannel {
+
+        private final Storage storage;
+        private final BlobId id;
+        private final long size;
+        private final Deque<Future<ByteBuffer>> ranges = new ArrayDeque<>();
+        private long nextRangeStart;
+        private ByteBuffer current;
+        private boolean open = true;
+
+        private RangedReadChannel(Storage storage, BlobId id, long size) {
+            this.storage = storage;
+            this.id = id;
+            this.size = size;
+            while (ranges.size() < parallelism && nextRangeStart < size) {
+                submitNextRange();
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            while (current == null || !current.hasRemaining()) {
+                Future<ByteBuffer> range = ranges.poll();
+                if (range == null) {
+                    return -1;
+                }
+                if (nextRangeStart < size) {
+                    submitNextRange();
+                }
+                current = await(range);
+            }
+            int count = Math.min(dst.remaining(), current.remaining());
+            ByteBuffer slice = current.duplicate();
+            slice.limit(slice.position() + count);
+            dst.put(slice);
+            current.position(current.position() + count);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            ranges.forEach(r -> r.cancel(true));
+            ranges.clear();
+            current = null;
+        }
+
+        private void submitNextRange() {
+            long start = nextRangeStart;
+            int length = (int) Math.min(rangeSize, size - start);
+            nextRangeStart += length;
+            ranges.add(executor.submit(() -> readRangeWithRetry(start, length)));
+        }
+
+        private ByteBuffer readRangeWithRetry(long start, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    readRange(buffer, start);
+                    buffer.flip();
+                    return buffer;
+                } catch (StorageException e) {
+                    if (attempt >= maxAttempts || !e.isRetryable()) {
+                        throw e;
+                    }
+                    LOGGER.debug("Retrying range of {} at {} after attempt {} failed", id, start, attempt, e);
+                    buffer.clear();
+                }
+            }
+        }
+
+        private void readRange(ByteBuffer buffer, long start) throws IOException {
+            int length = buffer.remaining();
+            try (ReadChannel reader = storage.reader(id)) {
+                reader.setChunkSize(length);
+                reader.seek(start);
+                while (buffer.hasRemaining() && reader.read(buffer) >= 0) {
+                    // Keep reading until the range is complete
+                }
+            }
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected end of " + id + " at " + (start + buffer.position()));
+            }
+        }
+
+        private ByteBuffer await(Future<ByteBuffer> range) throws IOException {
+            try {
+                return range.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted while downloading " + id);
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Failed to download " + id, e.getCause());
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.slamdev.spring.boot.gcp.storage.resource;
 
+import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.Storage;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.io.DefaultResourceLoader;
@@ -7,18 +8,20 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.ClassUtils;
 
+import java.util.concurrent.Executor;
+
 public class SimpleStorageResourceLoader implements ResourceLoader, InitializingBean {
 
-    private final Storage storage;
+    private final StorageResourceContext context;
     private final ResourceLoader delegate;
 
     public SimpleStorageResourceLoader(Storage storage, ResourceLoader delegate) {
-        this.storage = storage;
+        this.context = new StorageResourceContext(storage);
         this.delegate = delegate;
     }
 
     public SimpleStorageResourceLoader(Storage storage, ClassLoader classLoader) {
-        this.storage = storage;
+        this.context = new StorageResourceContext(storage);
         this.delegate = new DefaultResourceLoader(classLoader);
     }
 
@@ -29,12 +32,106 @@ public class SimpleStorageResourceLoader implements ResourceLoader, Initializing
     @Override
     public Resource getResource(String location) {
         if (NameUtils.isStorageResource(location)) {
-            return new StorageResource(this.storage, NameUtils.getBucketNameFromLocation(location),
-                    NameUtils.getObjectNameFromLocation(location));
+            return new StorageResource(this.context, NameUtils.parseLocation(location));
         }
         return this.delegate.getResource(location);
     }
 
+    /**
+     * Returns a resource for the already fetched object metadata without any additional storage calls.
+     */
+    public StorageResource getResource(Blob metadata) {
+        StorageMetadataCache metadataCache = this.context.getMetadataCache();
+        if (metadataCache != null) {
+            metadataCache.put(metadata);
+        }
+        return new StorageResource(this.context, metadata);
+    }
+
+    /**
+     * Set the metadata cache shared by all resources created by this loader. Default is no cache, so every resource
+     * fetches the object metadata on its own.
+     */
+    public void setMetadataCache(StorageMetadataCache metadataCache) {
+        this.context.setMetadataCache(metadataCache);
+    }
+
+    public StorageMetadataCache getMetadataCache() {
+        return this.context.getMetadataCache();
+    }
+
+    /**
+     * Set the local file cache used to serve object contents of all resources created by this loader. Default is no
+     * cache, so contents are always streamed from the storage and {@link StorageResource#getFile()} is not supported.
+     */
+    public void setLocalFileCache(LocalFileCache localFileCache) {
+        this.context.setLocalFileCache(localFileCache);
+    }
+
+    public LocalFileCache getLocalFileCache() {
+        return this.context.getLocalFileCache();
+    }
+
+    /**
+     * Set the downloader used to read large objects as parallel byte ranges. Default is a single stream per object.
+     */
+    public void setRangedDownloader(RangedDownloader rangedDownloader) {
+        this.context.setRangedDownloader(rangedDownloader);
+    }
+
+    public RangedDownloader getRangedDownloader() {
+        return this.context.getRangedDownloader();
+    }
+
+    /**
+     * Set the uploader used to write resources as parallel composite uploads. Default is a single resumable upload.
+     */
+    public void setCompositeUploader(CompositeUploader compositeUploader) {
+        this.context.setCompositeUploader(compositeUploader);
+    }
+
+    public CompositeUploader getCompositeUploader() {
+        return this.context.getCompositeUploader();
+    }
+
+    /**
+     * Set the number of bytes requested per read call of a resource. Default is the client library default.
+     */
+    public void setReadChunkSize(int readChunkSize) {
+        this.context.setReadChunkSize(readChunkSize);
+    }
+
+    /**
+     * Set the number of bytes uploaded per request when writing a resource. Default is the client library default.
+     */
+    public void setWriteChunkSize(int writeChunkSize) {
+        this.context.setWriteChunkSize(writeChunkSize);
+    }
+
+    /**
+     * Set the executor running {@link AsyncStorageResource} operations of all resources created by this loader.
+     * Default is none, so {@link StorageResource#async()} fails until an executor is set.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.context.setAsyncExecutor(asyncExecutor);
+    }
+
+    public Executor getAsyncExecutor() {
+        return this.context.getAsyncExecutor();
+    }
+
+    /**
+     * Set the listener receiving measurements of reads and writes of all resources created by this loader. Default is
+     * no listener, so contents are not measured at all.
+     */
+    public void setMetricsListener(StorageMetricsListener metricsListener) {
+        this.context.setMetricsListener(metricsListener);
+    }
+
+    public StorageMetricsListener getMetricsListener() {
+        return this.context.getMetricsListener();
+    }
+
     @SuppressWarnings("PMD.UseProperClassLoader")
     @Override
     public ClassLoader getClassLoader() {
@@ -0,0 +1,25 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import lombok.Value;
+
+/**
+ * Parsed {@code gcs://bucket/object^generation} location, the generation being optional.
+ */
+@Value
+public class StorageLocation {
+
+    String bucketName;
+
+    String objectName;
+
+    /**
+     * The object generation to read, {@code null} for the live version.
+     */
+    Long generation;
+
+    @Override
+    public String toString() {
+        String location = NameUtils.getLocationForBucketAndObject(bucketName, objectName);
+        return generation == null ? location : location + NameUtils.VERSION_DELIMITER + generation;
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Object metadata cache shared by all {@link StorageResource} instances of a {@link SimpleStorageResourceLoader}.
+ * Entries are keyed by {@link BlobId}, evicted in least recently used order once {@code maxEntries} is reached and
+ * expire after the configured time to live. Missing objects (404 and 301 responses) are cached as well, with their
+ * own time to live.
+ */
+public class StorageMetadataCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<BlobId, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StorageMetadataCache(int maxEntries, long ttl, long negativeTtl, TimeUnit unit) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Max entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.negativeTtlNanos = unit.toNanos(negativeTtl);
+        this.entries = new LinkedHashMap<BlobId, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlobId, Entry> eldest) {
+                return size() > StorageMetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached metadata of the object or loads it with the given loader. The loader returns {@code null}
+     * when the object does not exist.
+     */
+    public Blob get(BlobId id, Function<BlobId, Blob> loader) {
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+        }
+        if (entry != null && entry.expiresAt - now > 0) {
+            hits.increment();
+            return entry.blob;
+        }
+        misses.increment();
+        Blob blob = loader.apply(id);
+        put(id, blob, System.nanoTime());
+        return blob;
+    }
+
+    /**
+     * Stores already fetched metadata of the live object version, e.g. the one returned by a list call.
+     */
+    public void put(Blob blob) {
+        put(BlobId.of(blob.getBucket(), blob.getName()), blob, System.nanoTime());
+    }
+
+    /**
+     * Removes the cached metadata of the object. When the id names a generation the entry of the live version is
+     * removed as well, since deleting or replacing that generation may change the live object.
+     */
+    public void invalidate(BlobId id) {
+        synchronized (entries) {
+            entries.remove(id);
+            if (id.getGeneration() != null) {
+                entries.remove(BlobId.of(id.getBucket(), id.getName()));
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void put(BlobId id, Blob blob, long now) {
+        long ttl = blob == null ? negativeTtlNanos : ttlNanos;
+        if (ttl <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(id, new Entry(blob, now + ttl));
+        }
+    }
+
+    private static final class Entry {
+
+        private final Blob blob;
+        private final long expiresAt;
+
+        private Entry(Blob blob, long expiresAt) {
+            this.blob = blob;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
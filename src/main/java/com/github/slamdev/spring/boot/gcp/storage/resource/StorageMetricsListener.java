@@ -0,0 +1,37 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+/**
+ * Receives measurements of gcs operations, e.g. to publish them as metrics. Methods are called on the threads
+ * running the operations, so implementations must be thread safe and fast.
+ */
+public interface StorageMetricsListener {
+
+    /**
+     * Called when a read of object contents completes, measured from opening the object until closing it.
+     */
+    default void onRead(long bytes, long durationNanos) {
+    }
+
+    /**
+     * Called when a write of object contents completes, measured from opening the object until closing it.
+     */
+    default void onWrite(long bytes, long durationNanos) {
+    }
+
+    /**
+     * Called when a read or write fails.
+     *
+     * @param operation Either {@code read} or {@code write}
+     * @param code      The HTTP status code of the failed storage call, 0 when the failure has none
+     */
+    default void onError(String operation, int code) {
+    }
+
+    /**
+     * Called when a gcs location pattern is resolved.
+     *
+     * @param listCalls The number of list pages requested to resolve the pattern
+     */
+    default void onResolve(int listCalls, long durationNanos) {
+    }
+}
@@ -1,34 +1,59 @@
 package com.github.slamdev.spring.boot.gcp.storage.resource;
 
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
 import lombok.Getter;
 import org.springframework.core.io.AbstractResource;
 import org.springframework.core.io.WritableResource;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import static com.github.slamdev.spring.boot.gcp.storage.resource.LazySupplier.lazily;
 
 public class StorageResource extends AbstractResource implements WritableResource {
 
+    private static final DirectBufferPool TRANSFER_BUFFERS = new DirectBufferPool(1024 * 1024, 16);
+
     @Getter
     private final String bucketName;
     @Getter
     private final String objectName;
+    @Getter
+    private final Long generation;
+    private final StorageResourceContext context;
     private final Storage storage;
-    private final Supplier<Blob> objectMetadata = lazily(this::getObjectMetadata);
+    private final Supplier<Blob> objectMetadata;
 
-    StorageResource(Storage storage, String bucketName, String objectName) {
-        this.storage = storage;
-        this.bucketName = bucketName;
-        this.objectName = objectName;
+    StorageResource(StorageResourceContext context, StorageLocation location) {
+        this.context = context;
+        this.storage = context.getStorage();
+        this.bucketName = location.getBucketName();
+        this.objectName = location.getObjectName();
+        this.generation = location.getGeneration();
+        this.objectMetadata = lazily(this::getObjectMetadata);
+    }
+
+    /**
+     * Creates a resource backed by already fetched object metadata, e.g. the one returned by a list call, so
+     * {@link #exists()}, {@link #contentLength()} and {@link #lastModified()} do not hit the storage again.
+     */
+    StorageResource(StorageResourceContext context, Blob metadata) {
+        this.context = context;
+        this.storage = context.getStorage();
+        this.bucketName = metadata.getBucket();
+        this.objectName = metadata.getName();
+        this.generation = null;
+        this.objectMetadata = () -> metadata;
     }
 
     @Override
@@ -37,14 +62,147 @@ public class StorageResource extends AbstractResource implements WritableResourc
         builder.append(bucketName);
         builder.append("' and object='");
         builder.append(objectName);
+        if (generation != null) {
+            builder.append("' and generation='");
+            builder.append(generation);
+        }
         builder.append("']");
         return builder.toString();
     }
 
+    /**
+     * Returns the object contents, served from the local file cache when one is configured. Objects above the
+     * ranged download threshold are fetched as several byte ranges in parallel.
+     */
     @Override
-    public InputStream getInputStream() {
-        BlobId id = BlobId.of(bucketName, objectName);
-        return Channels.newInputStream(storage.reader(id));
+    public InputStream getInputStream() throws IOException {
+        LocalFileCache localFileCache = context.getLocalFileCache();
+        if (localFileCache != null) {
+            Blob metadata = getRequiredObjectMetadata();
+            if (localFileCache.isCacheable(metadata)) {
+                InputStream stream = localFileCache.openStream(metadata, () -> openReadChannel(metadata));
+                StorageMetricsListener listener = context.getMetricsListener();
+                return listener == null ? stream : MeteredChannels.metered(stream, listener);
+            }
+        }
+        return Channels.newInputStream(readableChannel());
+    }
+
+    /**
+     * Returns a channel over the object contents. The channel reads the locally cached file when a local file cache is
+     * configured, byte ranges in parallel for objects above the ranged download threshold, and otherwise streams
+     * the object in chunks of the configured read chunk size.
+     */
+    public ReadableByteChannel readableChannel() throws IOException {
+        StorageMetricsListener listener = context.getMetricsListener();
+        if (listener == null) {
+            return openChannel();
+        }
+        try {
+            return MeteredChannels.metered(openChannel(), listener);
+        } catch (IOException | RuntimeException e) {
+            listener.onError(MeteredChannels.READ, MeteredChannels.codeOf(e));
+            throw e;
+        }
+    }
+
+    private ReadableByteChannel openChannel() throws IOException {
+        LocalFileCache localFileCache = context.getLocalFileCache();
+        if (localFileCache != null) {
+            Blob metadata = getRequiredObjectMetadata();
+            if (localFileCache.isCacheable(metadata)) {
+                return localFileCache.openChannel(metadata, () -> openReadChannel(metadata));
+            }
+            return openReadChannel(metadata);
+        }
+        if (context.getRangedDownloader() != null) {
+            return openReadChannel(getRequiredObjectMetadata());
+        }
+        return openReader(getBlobId());
+    }
+
+    private ReadableByteChannel openReadChannel(Blob metadata) {
+        RangedDownloader rangedDownloader = context.getRangedDownloader();
+        if (rangedDownloader != null && rangedDownloader.isApplicable(metadata)) {
+            return rangedDownloader.open(storage, metadata);
+        }
+        return openReader(metadata.getBlobId());
+    }
+
+    private ReadChannel openReader(BlobId id) {
+        ReadChannel reader = storage.reader(id);
+        if (context.getReadChunkSize() > 0) {
+            reader.setChunkSize(context.getReadChunkSize());
+        }
+        return reader;
+    }
+
+    /**
+     * Copies the object contents to the given channel through a pooled direct buffer, or with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)} when the object is served from the local file
+     * cache. The target channel is not closed.
+     *
+     * @return The number of copied bytes
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        StorageMetricsListener listener = context.getMetricsListener();
+        long start = System.nanoTime();
+        try {
+            long count = transferChannelTo(target);
+            if (listener != null) {
+                listener.onRead(count, System.nanoTime() - start);
+            }
+            return count;
+        } catch (IOException | RuntimeException e) {
+            if (listener != null) {
+                listener.onError(MeteredChannels.READ, MeteredChannels.codeOf(e));
+            }
+            throw e;
+        }
+    }
+
+    private long transferChannelTo(WritableByteChannel target) throws IOException {
+        try (ReadableByteChannel source = openChannel()) {
+            if (source instanceof FileChannel) {
+                FileChannel file = (FileChannel) source;
+                long size = file.size();
+                long position = 0;
+                while (position < size) {
+                    position += file.transferTo(position, size - position, target);
+                }
+                return size;
+            }
+            return copy(source, target);
+        }
+    }
+
+    /**
+     * Replaces the object contents with the contents of the given channel, copied through a pooled direct buffer.
+     * The source channel is not closed.
+     *
+     * @return The number of copied bytes
+     */
+    public long transferFrom(ReadableByteChannel source) throws IOException {
+        try (WritableByteChannel target = writableChannel()) {
+            return copy(source, target);
+        }
+    }
+
+    private static long copy(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = TRANSFER_BUFFERS.acquire();
+        try {
+            long count = 0;
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    count += target.write(buffer);
+                }
+                buffer.clear();
+            }
+            return count;
+        } finally {
+            TRANSFER_BUFFERS.release(buffer);
+        }
     }
 
     @Override
@@ -72,10 +230,20 @@ public class StorageResource extends AbstractResource implements WritableResourc
         return new URL(getRequiredObjectMetadata().getSelfLink());
     }
 
+    /**
+     * Returns the locally cached copy of the object. Only supported when a local file cache is configured. The file
+     * may be evicted once it was not used for a while, prefer {@link #getInputStream()} or {@link #readableChannel()},
+     * which keep reading an evicted file.
+     */
     @Override
-    public File getFile() {
-        throw new UnsupportedOperationException("Google Cloud Storage resource can not be resolved to java.io.File "
-                + "objects. Use getInputStream() to retrieve the contents of the object!");
+    public File getFile() throws IOException {
+        LocalFileCache localFileCache = context.getLocalFileCache();
+        if (localFileCache == null) {
+            throw new UnsupportedOperationException("Google Cloud Storage resource can not be resolved to java.io.File "
+                    + "objects without a local file cache. Use getInputStream() to retrieve the contents of the object!");
+        }
+        Blob metadata = getRequiredObjectMetadata();
+        return localFileCache.get(metadata, () -> openReadChannel(metadata)).toFile();
     }
 
     private Blob getRequiredObjectMetadata() throws FileNotFoundException {
@@ -99,24 +267,145 @@ public class StorageResource extends AbstractResource implements WritableResourc
 
     @Override
     public OutputStream getOutputStream() {
+        return Channels.newOutputStream(writableChannel());
+    }
+
+    /**
+     * Returns a channel that replaces the object contents, uploading them in chunks of the configured write chunk
+     * size, or as a parallel composite upload when a composite uploader is configured. The object is only replaced
+     * once the channel is closed.
+     */
+    public WritableByteChannel writableChannel() {
         BlobId id = BlobId.of(bucketName, objectName);
         BlobInfo info = BlobInfo.newBuilder(id).build();
-        return Channels.newOutputStream(storage.writer(info));
+        invalidateCachedMetadata();
+        WritableByteChannel channel;
+        CompositeUploader compositeUploader = context.getCompositeUploader();
+        if (compositeUploader != null) {
+            channel = compositeUploader.open(storage, info);
+        } else {
+            WriteChannel writer = storage.writer(info);
+            if (context.getWriteChunkSize() > 0) {
+                writer.setChunkSize(context.getWriteChunkSize());
+            }
+            channel = writer;
+        }
+        StorageMetricsListener listener = context.getMetricsListener();
+        long start = System.nanoTime();
+        return new WritableByteChannel() {
+
+            private long count;
+            private boolean failed;
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                try {
+                    int written = channel.write(src);
+                    count += written;
+                    return written;
+                } catch (IOException | RuntimeException e) {
+                    onError(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                boolean wasOpen = channel.isOpen();
+                try {
+                    channel.close();
+                } catch (IOException | RuntimeException e) {
+                    onError(e);
+                    throw e;
+                } finally {
+                    invalidateCachedMetadata();
+                }
+                if (listener != null && wasOpen && !failed) {
+                    listener.onWrite(count, System.nanoTime() - start);
+                }
+            }
+
+            private void onError(Exception e) {
+                if (listener != null && !failed) {
+                    failed = true;
+                    listener.onError(MeteredChannels.WRITE, MeteredChannels.codeOf(e));
+                }
+            }
+        };
     }
 
     @Override
     public StorageResource createRelative(String relativePath) {
         String relativeKey = objectName + "/" + relativePath;
-        return new StorageResource(storage, bucketName, relativeKey);
+        String relativeLocation = NameUtils.getLocationForBucketAndObject(bucketName, relativeKey);
+        return new StorageResource(context, NameUtils.parseLocation(relativeLocation));
     }
 
+    /**
+     * Returns the parsed location of this resource, including the generation when one was requested.
+     */
+    public StorageLocation getLocation() {
+        return new StorageLocation(bucketName, objectName, generation);
+    }
+
+    /**
+     * Deletes the object, or only the requested generation of it when the location names one.
+     */
     public boolean delete() {
-        return storage.delete(BlobId.of(bucketName, objectName));
+        BlobId id = getBlobId();
+        try {
+            return storage.delete(id);
+        } finally {
+            invalidateCachedMetadata();
+        }
+    }
+
+    /**
+     * Returns a non-blocking view of this resource running on the async executor of the loader. Blocking storage
+     * calls never run on the common fork join pool, so the loader must have an async executor.
+     *
+     * @throws IllegalStateException if the loader has no async executor
+     */
+    public AsyncStorageResource async() {
+        Executor executor = context.getAsyncExecutor();
+        if (executor == null) {
+            throw new IllegalStateException("No async executor set on the resource loader of " + getDescription());
+        }
+        return new AsyncStorageResource(this, executor);
+    }
+
+    StorageResourceContext getContext() {
+        return context;
+    }
+
+    BlobId getBlobId() {
+        return BlobId.of(bucketName, objectName, generation);
+    }
+
+    /**
+     * Drops both the entry of the requested generation and the one of the live version, either may be stale after
+     * the object is deleted or replaced.
+     */
+    private void invalidateCachedMetadata() {
+        StorageMetadataCache metadataCache = context.getMetadataCache();
+        if (metadataCache != null) {
+            metadataCache.invalidate(getBlobId());
+        }
     }
 
     private Blob getObjectMetadata() {
+        BlobId id = getBlobId();
+        StorageMetadataCache metadataCache = context.getMetadataCache();
+        return metadataCache == null ? fetchObjectMetadata(id) : metadataCache.get(id, this::fetchObjectMetadata);
+    }
+
+    private Blob fetchObjectMetadata(BlobId id) {
         try {
-            BlobId id = BlobId.of(bucketName, objectName);
             return storage.get(id);
         } catch (StorageException e) {
             // Catch 404 (object not found) and 301 (bucket not found, moved permanently)
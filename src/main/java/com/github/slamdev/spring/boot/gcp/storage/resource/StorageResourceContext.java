@@ -0,0 +1,29 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Storage;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Collaborators shared by all {@link StorageResource} instances created by one {@link SimpleStorageResourceLoader}.
+ */
+@Getter
+@Setter
+final class StorageResourceContext {
+
+    private final Storage storage;
+    private StorageMetadataCache metadataCache;
+    private LocalFileCache localFileCache;
+    private RangedDownloader rangedDownloader;
+    private CompositeUploader compositeUploader;
+    private int readChunkSize;
+    private int writeChunkSize;
+    private Executor asyncExecutor;
+    private StorageMetricsListener metricsListener;
+
+    StorageResourceContext(Storage storage) {
+        this.storage = storage;
+    }
+}
@@ -2,6 +2,7 @@ package com.github.slamdev.spring.boot.gcp.storage.resource;
 
 import com.google.cloud.storage.Storage;
 import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -9,16 +10,45 @@ import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link BeanPostProcessor} and {@link BeanFactoryPostProcessor} implementation that allows classes to receive
  * a specialized {@link ResourceLoader} that can handle gcs resources with the {@link ResourceLoaderAware} interface
  * or through injecting the resource loader.
  */
-public class StorageResourceLoaderBeanPostProcessor implements BeanPostProcessor, BeanFactoryPostProcessor, Ordered, ResourceLoaderAware {
+public class StorageResourceLoaderBeanPostProcessor implements BeanPostProcessor, BeanFactoryPostProcessor, Ordered,
+        ResourceLoaderAware, DisposableBean {
+
+    public static final int DEFAULT_LISTING_PARALLELISM = 8;
+
+    public static final int DEFAULT_ASYNC_THREADS = 32;
 
     private final Storage storage;
     private ResourceLoader resourceLoader;
+    private int listingParallelism = DEFAULT_LISTING_PARALLELISM;
+    private long bucketCacheTtlSeconds;
+    private ExecutorService listingExecutor;
+    private int asyncThreads = DEFAULT_ASYNC_THREADS;
+    private boolean asyncVirtualThreads;
+    private ExecutorService asyncExecutor;
+    private StorageMetadataCache metadataCache;
+    private LocalFileCache localFileCache;
+    private RangedDownloader rangedDownloader;
+    private CompositeUploader compositeUploader;
+    private int readChunkSize;
+    private int writeChunkSize;
+    private StorageMetricsListener metricsListener;
+    private SimpleStorageResourceLoader storageResourceLoader;
+    private PathMatchingSimpleStorageResourcePatternResolver patternResolver;
 
     public StorageResourceLoaderBeanPostProcessor(Storage storage) {
         this.storage = storage;
@@ -40,19 +70,53 @@ public class StorageResourceLoaderBeanPostProcessor implements BeanPostProcessor
     @Override
     public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
         SimpleStorageResourceLoader simpleStorageResourceLoader = new SimpleStorageResourceLoader(this.storage, this.resourceLoader);
+        simpleStorageResourceLoader.setMetadataCache(this.metadataCache);
+        simpleStorageResourceLoader.setLocalFileCache(this.localFileCache);
+        simpleStorageResourceLoader.setRangedDownloader(this.rangedDownloader);
+        simpleStorageResourceLoader.setCompositeUploader(this.compositeUploader);
+        simpleStorageResourceLoader.setReadChunkSize(this.readChunkSize);
+        simpleStorageResourceLoader.setWriteChunkSize(this.writeChunkSize);
+        this.asyncExecutor = createAsyncExecutor();
+        simpleStorageResourceLoader.setAsyncExecutor(this.asyncExecutor);
+        simpleStorageResourceLoader.setMetricsListener(this.metricsListener);
         try {
             simpleStorageResourceLoader.afterPropertiesSet();
         } catch (Exception e) {
             throw new BeanInstantiationException(SimpleStorageResourceLoader.class, "Error instantiating class", e);
         }
 
-        this.resourceLoader = new PathMatchingSimpleStorageResourcePatternResolver(this.storage,
-                simpleStorageResourceLoader, (ResourcePatternResolver) this.resourceLoader);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcs-listing-");
+        threadFactory.setDaemon(true);
+        this.listingExecutor = Executors.newFixedThreadPool(this.listingParallelism, threadFactory);
 
+        PathMatchingSimpleStorageResourcePatternResolver resolver = new PathMatchingSimpleStorageResourcePatternResolver(
+                this.storage, simpleStorageResourceLoader, (ResourcePatternResolver) this.resourceLoader);
+        resolver.setListingExecutor(this.listingExecutor);
+        resolver.setListingParallelism(this.listingParallelism);
+        if (this.bucketCacheTtlSeconds > 0) {
+            resolver.setBucketNameCache(new BucketNameCache(this.storage, this.bucketCacheTtlSeconds, TimeUnit.SECONDS));
+        }
+        resolver.setMetricsListener(this.metricsListener);
+        this.storageResourceLoader = simpleStorageResourceLoader;
+        this.patternResolver = resolver;
+        this.resourceLoader = resolver;
 
         beanFactory.registerResolvableDependency(ResourceLoader.class, this.resourceLoader);
     }
 
+    private ExecutorService createAsyncExecutor() {
+        if (this.asyncVirtualThreads) {
+            // Executors.newVirtualThreadPerTaskExecutor() is only available on JDK 21 and later
+            Method factory = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+            if (factory != null) {
+                return (ExecutorService) ReflectionUtils.invokeMethod(factory, null);
+            }
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gcs-async-");
+        threadFactory.setDaemon(true);
+        return Executors.newFixedThreadPool(this.asyncThreads, threadFactory);
+    }
+
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE;
@@ -62,4 +126,101 @@ public class StorageResourceLoaderBeanPostProcessor implements BeanPostProcessor
     public void setResourceLoader(ResourceLoader resourceLoader) {
         this.resourceLoader = resourceLoader;
     }
+
+    /**
+     * Set the maximum number of concurrent list calls used to resolve gcs location patterns.
+     */
+    public void setListingParallelism(int listingParallelism) {
+        this.listingParallelism = listingParallelism;
+    }
+
+    /**
+     * Set the time to live of cached bucket names used to resolve bucket wildcards, 0 disables the cache.
+     */
+    public void setBucketCacheTtlSeconds(long bucketCacheTtlSeconds) {
+        this.bucketCacheTtlSeconds = bucketCacheTtlSeconds;
+    }
+
+    /**
+     * Set the metadata cache shared by all gcs resources loaded through the application context.
+     */
+    public void setMetadataCache(StorageMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    public StorageMetadataCache getMetadataCache() {
+        return this.metadataCache;
+    }
+
+    /**
+     * Set the local file cache used to serve contents of gcs resources loaded through the application context.
+     */
+    public void setLocalFileCache(LocalFileCache localFileCache) {
+        this.localFileCache = localFileCache;
+    }
+
+    /**
+     * Set the downloader used to read large gcs resources loaded through the application context.
+     */
+    public void setRangedDownloader(RangedDownloader rangedDownloader) {
+        this.rangedDownloader = rangedDownloader;
+    }
+
+    /**
+     * Set the uploader used to write gcs resources loaded through the application context.
+     */
+    public void setCompositeUploader(CompositeUploader compositeUploader) {
+        this.compositeUploader = compositeUploader;
+    }
+
+    /**
+     * Set the number of platform threads running asynchronous operations of gcs resources.
+     */
+    public void setAsyncThreads(int asyncThreads) {
+        Assert.isTrue(asyncThreads > 0, "Async threads must be positive");
+        this.asyncThreads = asyncThreads;
+    }
+
+    /**
+     * Set whether asynchronous operations of gcs resources run on virtual threads when the JDK provides them.
+     */
+    public void setAsyncVirtualThreads(boolean asyncVirtualThreads) {
+        this.asyncVirtualThreads = asyncVirtualThreads;
+    }
+
+    /**
+     * Set the listener receiving measurements of gcs resources loaded through the application context. May be called
+     * after the bean factory was post processed, e.g. once a metrics registry is available.
+     */
+    public void setMetricsListener(StorageMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        if (this.storageResourceLoader != null) {
+            this.storageResourceLoader.setMetricsListener(metricsListener);
+            this.patternResolver.setMetricsListener(metricsListener);
+        }
+    }
+
+    public void setReadChunkSize(int readChunkSize) {
+        this.readChunkSize = readChunkSize;
+    }
+
+    public void setWriteChunkSize(int writeChunkSize) {
+        this.writeChunkSize = writeChunkSize;
+    }
+
+    @Override
+    public void destroy() {
+        if (this.listingExecutor != null) {
+            this.listingExecutor.shutdownNow();
+        }
+        if (this.asyncExecutor != null) {
+            this.asyncExecutor.shutdown();
+        }
+        if (this.rangedDownloader != null) {
+            this.rangedDownloader.shutdown();
+        }
+        if (this.compositeUploader != null) {
+            this.compositeUploader.shutdown();
+        }
+    }
 }
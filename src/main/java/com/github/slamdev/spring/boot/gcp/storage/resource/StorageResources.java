@@ -0,0 +1,90 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Bulk operations on collections of {@link StorageResource}. Requests are sent through the gcs batch endpoint in
+ * batches of at most {@link #MAX_BATCH_SIZE} calls, so checking or deleting thousands of objects costs a few round
+ * trips instead of one per object. Results are returned per resource in the iteration order of the input.
+ */
+public final class StorageResources {
+
+    /**
+     * Maximum number of calls of a single batch request.
+     */
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private StorageResources() {
+        // Utility class
+    }
+
+    /**
+     * Fetches the metadata of all resources, the value is empty for objects that do not exist.
+     */
+    public static Map<StorageResource, Optional<Blob>> fetchMetadata(Collection<StorageResource> resources) {
+        Map<StorageResource, Optional<Blob>> results = new LinkedHashMap<>();
+        StorageResources.<Blob>execute(resources, Storage::get, (resource, blob) -> {
+            StorageMetadataCache metadataCache = resource.getContext().getMetadataCache();
+            if (metadataCache != null && blob != null) {
+                metadataCache.put(blob);
+            }
+            results.put(resource, Optional.ofNullable(blob));
+        });
+        return results;
+    }
+
+    public static Map<StorageResource, Boolean> existsAll(Collection<StorageResource> resources) {
+        Map<StorageResource, Boolean> results = new LinkedHashMap<>();
+        fetchMetadata(resources).forEach((resource, blob) -> results.put(resource, blob.isPresent()));
+        return results;
+    }
+
+    /**
+     * Deletes all resources, the value is {@code false} for objects that did not exist.
+     */
+    public static Map<StorageResource, Boolean> deleteAll(Collection<StorageResource> resources) {
+        Map<StorageResource, Boolean> results = new LinkedHashMap<>();
+        StorageResources.<Boolean>execute(resources, Storage::delete, (resource, deleted) -> {
+            StorageMetadataCache metadataCache = resource.getContext().getMetadataCache();
+            if (metadataCache != null) {
+                metadataCache.invalidate(resource.getBlobId());
+            }
+            results.put(resource, deleted);
+        });
+        return results;
+    }
+
+    /**
+     * Splits the resources into batches per storage client and hands the per-item results to the consumer.
+     */
+    private static <T> void execute(Collection<StorageResource> resources,
+                                    BiFunction<Storage, List<BlobId>, List<T>> call,
+                                    ResultConsumer<T> consumer) {
+        Map<Storage, List<StorageResource>> byStorage = new IdentityHashMap<>();
+        for (StorageResource resource : resources) {
+            byStorage.computeIfAbsent(resource.getContext().getStorage(), s -> new ArrayList<>()).add(resource);
+        }
+        byStorage.forEach((storage, group) -> {
+            for (int i = 0; i < group.size(); i += MAX_BATCH_SIZE) {
+                List<StorageResource> batch = group.subList(i, Math.min(i + MAX_BATCH_SIZE, group.size()));
+                List<T> results = call.apply(storage, batch.stream().map(StorageResource::getBlobId).collect(toList()));
+                for (int j = 0; j < batch.size(); j++) {
+                    consumer.accept(batch.get(j), results.get(j));
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ResultConsumer<T> {
+
+        void accept(StorageResource resource, T result);
+    }
+}
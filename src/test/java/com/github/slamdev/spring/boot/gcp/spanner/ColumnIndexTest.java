@@ -0,0 +1,36 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnIndexTest {
+
+    @Test
+    public void reusesIndexOfSameTypeInstance() {
+        Type type = rowType();
+
+        assertSame(ColumnIndex.of(type), ColumnIndex.of(type));
+    }
+
+    @Test
+    public void resolvesEqualTypesOfDifferentResultSets() {
+        ColumnIndex first = ColumnIndex.of(rowType());
+        ColumnIndex second = ColumnIndex.of(rowType());
+
+        assertEquals(first.getType(), second.getType());
+        assertEquals(1, second.getIndex("name"));
+        assertTrue(second.has("user_id"));
+        assertFalse(second.has("missing"));
+        assertEquals(-1, second.indexOf("missing"));
+    }
+
+    private static Type rowType() {
+        return Type.struct(StructField.of("user_id", Type.int64()), StructField.of("name", Type.string()));
+    }
+}
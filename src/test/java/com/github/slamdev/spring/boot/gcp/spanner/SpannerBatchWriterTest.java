@@ -0,0 +1,82 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SpannerBatchWriterTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private SpannerBatchWriter writer;
+
+    @After
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    public void retriesIdempotentBatchOnUnavailable() {
+        writer = writer(ErrorCode.UNAVAILABLE);
+
+        long written = writer.write(Collections.singletonList(mutation(Mutation.newInsertOrUpdateBuilder("users"))));
+
+        assertEquals(1, written);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void doesNotRetryInsertsOnUnavailable() {
+        writer = writer(ErrorCode.UNAVAILABLE);
+
+        try {
+            writer.write(Collections.singletonList(mutation(Mutation.newInsertBuilder("users"))));
+            fail("Expected the commit to fail");
+        } catch (SpannerException e) {
+            assertEquals(ErrorCode.UNAVAILABLE, e.getErrorCode());
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void retriesInsertsWhenAborted() {
+        writer = writer(ErrorCode.ABORTED);
+
+        writer.write(Collections.singletonList(mutation(Mutation.newInsertBuilder("users"))));
+
+        assertEquals(2, attempts.get());
+    }
+
+    /**
+     * Creates a writer whose first commit fails with the given code and whose later commits succeed.
+     */
+    private SpannerBatchWriter writer(ErrorCode firstFailure) {
+        DatabaseClient db = (DatabaseClient) Proxy.newProxyInstance(DatabaseClient.class.getClassLoader(),
+                new Class<?>[]{DatabaseClient.class}, (proxy, method, args) -> {
+                    if (!"write".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (attempts.incrementAndGet() == 1) {
+                        throw SpannerExceptionFactory.newSpannerException(firstFailure, "First attempt fails");
+                    }
+                    return null;
+                });
+        return new SpannerBatchWriter(db, SpannerBatchWriter.DEFAULT_MAX_CELLS, SpannerBatchWriter.DEFAULT_MAX_BYTES,
+                1, 3);
+    }
+
+    private static Mutation mutation(Mutation.WriteBuilder builder) {
+        return builder.set("user_id").to(1L).set("name").to("first").build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import lombok.Data;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpannerHelperTest {
+
+    private static final Type ROW_TYPE = Type.struct(
+            StructField.of("user_id", Type.int64()),
+            StructField.of("name", Type.string()),
+            StructField.of("visits", Type.int64()));
+
+    @Test
+    public void mapAllWithBeanMapper() {
+        List<User> users = SpannerHelper.mapAll(resultSet(), SpannerHelper.beanMapper(User.class));
+
+        assertEquals(2, users.size());
+        assertEquals(1L, users.get(0).getUserId());
+        assertEquals("first", users.get(0).getName());
+        assertEquals(10, users.get(0).getVisits());
+        assertEquals(2L, users.get(1).getUserId());
+        assertNull(users.get(1).getName());
+    }
+
+    @Test
+    public void mapAllWithRowMapper() {
+        List<String> names = SpannerHelper.mapAll(resultSet(), SpannerHelper.rowMapper(columns -> {
+            int id = columns.getIndex("user_id");
+            int name = columns.getIndex("name");
+            return row -> row.getLong(id) + ":" + (row.isNull(name) ? "-" : row.getString(name));
+        }));
+
+        assertEquals(Arrays.asList("1:first", "2:-"), names);
+    }
+
+    @Test
+    public void beanMapperMapsStructs() {
+        Struct struct = Struct.newBuilder()
+                .set("user_id").to(3)
+                .set("name").to("third")
+                .set("visits").to(30)
+                .build();
+
+        User user = SpannerHelper.map(struct, SpannerHelper.beanMapper(User.class)).orElse(null);
+
+        assertEquals(3L, user.getUserId());
+        assertEquals("third", user.getName());
+    }
+
+    @Test
+    public void reportsMappedRowsToListener() {
+        RecordingListener listener = new RecordingListener();
+
+        SpannerHelper.mapAll(resultSet(), SpannerHelper.beanMapper(User.class), listener);
+        try (Stream<User> users = SpannerHelper.stream(resultSet(), SpannerHelper.beanMapper(User.class), listener)) {
+            assertEquals(1, users.limit(1).count());
+        }
+
+        assertEquals(Arrays.asList(2L, 1L), listener.mapped);
+    }
+
+    @Test
+    public void reportsEverySliceOfBatchWriteAsCommit() {
+        RecordingListener listener = new RecordingListener();
+        DatabaseClient db = (DatabaseClient) Proxy.newProxyInstance(DatabaseClient.class.getClassLoader(),
+                new Class<?>[]{DatabaseClient.class}, (proxy, method, args) -> null);
+        List<Mutation> mutations = Collections.nCopies(5, Mutation.delete("users", Key.of(1L)));
+
+        SpannerHelper.batchWrite(db, mutations, 2, listener);
+
+        assertEquals(Arrays.asList(2, 2, 1), listener.commits);
+    }
+
+    private static ResultSet resultSet() {
+        return ResultSets.forRows(ROW_TYPE, Arrays.asList(
+                Struct.newBuilder()
+                        .set("user_id").to(1)
+                        .set("name").to("first")
+                        .set("visits").to(10)
+                        .build(),
+                Struct.newBuilder()
+                        .set("user_id").to(2)
+                        .set("name").to((String) null)
+                        .set("visits").to(20)
+                        .build()));
+    }
+
+    private static final class RecordingListener implements SpannerMetricsListener {
+
+        private final List<Long> mapped = new ArrayList<>();
+        private final List<Integer> commits = new ArrayList<>();
+
+        @Override
+        public void onCommit(int mutations, long durationNanos, boolean success) {
+            commits.add(mutations);
+        }
+
+        @Override
+        public void onMapped(long rows, long durationNanos) {
+            mapped.add(rows);
+        }
+    }
+
+    @Data
+    public static class User {
+        private long userId;
+        private String name;
+        private int visits;
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.slamdev.spring.boot.gcp.spanner;
+
+import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.TimestampBound;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SpannerKeyLoaderTest {
+
+    private static final Type ROW_TYPE = Type.struct(
+            StructField.of("user_id", Type.int64()),
+            StructField.of("name", Type.string()));
+
+    private static final List<Struct> ROWS = Arrays.asList(
+            Struct.newBuilder().set("user_id").to(1).set("name").to("first").build(),
+            Struct.newBuilder().set("user_id").to(2).set("name").to("second").build());
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final SpannerKeyLoaderFactory factory = new SpannerKeyLoaderFactory(databaseClient(),
+            TimestampBound.strong());
+
+    @After
+    public void tearDown() {
+        factory.shutdown();
+    }
+
+    @Test
+    public void readsBatchWhenWindowCloses() throws Exception {
+        SpannerKeyLoader<String> loader = loader(TimeUnit.MILLISECONDS.toMicros(50), 100);
+
+        CompletableFuture<Optional<String>> first = loader.load(Key.of(1L));
+        CompletableFuture<Optional<String>> second = loader.load(Key.of(2L));
+        CompletableFuture<Optional<String>> missing = loader.load(Key.of(3L));
+
+        assertEquals(Optional.of("first"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of("second"), second.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.empty(), missing.get(5, TimeUnit.SECONDS));
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void readsBatchOnceFull() throws Exception {
+        SpannerKeyLoader<String> loader = loader(TimeUnit.MINUTES.toMicros(10), 2);
+
+        CompletableFuture<Optional<String>> first = loader.load(Key.of(1L));
+        CompletableFuture<Optional<String>> again = loader.load(Key.of(1L));
+        assertFalse(first.isDone());
+        CompletableFuture<Optional<String>> second = loader.load(Key.of(2L));
+
+        assertEquals(Optional.of("first"), first.get(5, TimeUnit.SECONDS));
+        assertEquals(Optional.of("second"), second.get(5, TimeUnit.SECONDS));
+        assertSame(first, again);
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void readsOnCallingThreadAfterShutdown() {
+        SpannerKeyLoader<String> loader = loader(TimeUnit.MINUTES.toMicros(10), 100);
+        factory.shutdown();
+
+        CompletableFuture<Optional<String>> row = loader.load(Key.of(1L));
+
+        assertTrue(row.isDone());
+        assertEquals(Optional.of("first"), row.join());
+        assertEquals(Optional.of("second"), loader.get(Key.of(2L)));
+        assertEquals(2, reads.get());
+    }
+
+    private SpannerKeyLoader<String> loader(long windowMicros, int maxBatchSize) {
+        return factory.create("users", singletonList("user_id"), Arrays.asList("user_id", "name"),
+                row -> row.getString("name"), windowMicros, maxBatchSize);
+    }
+
+    /**
+     * Every read returns all rows of the table, the loader only completes the requested keys.
+     */
+    private DatabaseClient databaseClient() {
+        ReadContext readContext = proxy(ReadContext.class, method -> {
+            switch (method) {
+                case "read":
+                    reads.incrementAndGet();
+                    return ResultSets.forRows(ROW_TYPE, ROWS);
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method);
+            }
+        });
+        return proxy(DatabaseClient.class, method -> {
+            if ("singleUse".equals(method)) {
+                return readContext;
+            }
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, Function<String, Object> handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.apply(method.getName())));
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link CompiledAntPathMatcher} agrees with {@link AntPathMatcher} on every pattern and path of the
+ * corpus, with and without token trimming.
+ */
+@RunWith(Parameterized.class)
+public class CompiledAntPathMatcherTest {
+
+    private static final String[] PATTERNS = {
+            "", "/", "*", "/*", "**", "/**", "**/", "*/", "?",
+            "a", "/a", "a/", "a/b", "a//b", "a/b/", "/a/b",
+            "a/*", "a/*/", "a/*/c", "a/*.json", "a/part-?.gz", "a/p?rt-*.gz", "a/*-*.json", "a/*x*y*",
+            "a/**", "a/**/", "a/**/c", "a/**/*.json", "**/c", "**/*.json", "**/b/**", "a/**/b/**/c.json",
+            "a/**/**/c", "**/**", "a/b**", "a/**b", "a/b*/**/c?",
+            "tenants/tenant-1?/2024-*/*.json", "tenants/**/part-0000?.gz",
+            " a/b", "a/ b", "a/b ", "a/ * ", "a/ ** /c", "a/b\tc",
+            "a/?", "a/*b", "a/b\nc"
+    };
+
+    private static final String[] PATHS = {
+            "", "/", "a", "/a", "a/", "/a/", "a/b", "/a/b", "a/b/", "a//b", "a/b/c", "a/b/c/", "a/x/y/c",
+            "a/b.json", "a/bb.json", "a/b/c.json", "a/x/b/y/c.json", "a/part-1.gz", "a/part-12.gz", "a/prt-1.gz",
+            "a/1-2.json", "a/-.json", "a/axbyc", "a/xy", "a/bc", "a/b/c1", "a/bx/y/cz",
+            "tenants/tenant-12/2024-05-17/part-00017.json", "tenants/tenant-2/2024-05-17/part-00017.json",
+            "tenants/tenant-42/2023-01-01/part-00003.gz",
+            " a/b", "a/ b", "a/b ", "a/ b /c", "a/\tb", "a/b\tc", "a/ ", "a/  /b",
+            "a/\n", "a/x\nb", "a/b\nc", "a/\r", "a/\u2028b", "a/\u00a0b", "a/\u0085"
+    };
+
+    @Parameter
+    public String pattern;
+
+    @Parameter(1)
+    public String path;
+
+    @Parameters(name = "{index}: pattern [{0}] path [{1}]")
+    public static Collection<Object[]> cases() {
+        List<Object[]> cases = new ArrayList<>();
+        for (String pattern : PATTERNS) {
+            for (String path : PATHS) {
+                cases.add(new Object[]{pattern, path});
+            }
+        }
+        return cases;
+    }
+
+    @Test
+    public void matchesLikeAntPathMatcher() {
+        assertSameResults(new AntPathMatcher(), new CompiledAntPathMatcher());
+    }
+
+    @Test
+    public void matchesLikeAntPathMatcherWithoutTrimming() {
+        AntPathMatcher expected = new AntPathMatcher();
+        expected.setTrimTokens(false);
+        CompiledAntPathMatcher actual = new CompiledAntPathMatcher();
+        actual.setTrimTokens(false);
+
+        assertSameResults(expected, actual);
+    }
+
+    private void assertSameResults(AntPathMatcher expected, CompiledAntPathMatcher actual) {
+        assertEquals("match", expected.match(pattern, path), actual.match(pattern, path));
+        // Second call goes through the cached compiled pattern
+        assertEquals("match", expected.match(pattern, path), actual.match(pattern, path));
+        assertEquals("matchStart", expected.matchStart(pattern, path), actual.matchStart(pattern, path));
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.StorageException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CompositeUploaderTest {
+
+    private static final BlobInfo TARGET = BlobInfo.newBuilder("bucket", "target").build();
+
+    private final InMemoryStorage storage = new InMemoryStorage();
+
+    private CompositeUploader uploader;
+
+    @After
+    public void tearDown() {
+        uploader.shutdown();
+    }
+
+    @Test
+    public void streamsObjectBelowPartSizeToTarget() throws IOException {
+        uploader = new CompositeUploader(1024, 2, 1);
+        byte[] contents = bytes(100);
+
+        write(contents);
+
+        assertArrayEquals(contents, storage.get("bucket", "target"));
+        assertEquals(1, storage.getWriters());
+        assertEquals(0, storage.getComposes());
+    }
+
+    @Test
+    public void streamsEmptyObjectToTarget() throws IOException {
+        uploader = new CompositeUploader(1024, 2, 1);
+
+        write(new byte[0]);
+
+        assertArrayEquals(new byte[0], storage.get("bucket", "target"));
+    }
+
+    @Test
+    public void composesPartsAndDeletesThem() throws IOException {
+        uploader = new CompositeUploader(4, 2, 1);
+        byte[] contents = bytes(10);
+
+        write(contents);
+
+        assertArrayEquals(contents, storage.get("bucket", "target"));
+        assertEquals(3, storage.getWriters());
+        assertEquals(Collections.singletonList("target"), storage.names());
+    }
+
+    @Test
+    public void composesInRoundsAboveComposeLimit() throws IOException {
+        uploader = new CompositeUploader(1, 4, 1);
+        byte[] contents = bytes(CompositeUploader.MAX_COMPOSE_SOURCES * 2 + 3);
+
+        write(contents);
+
+        assertArrayEquals(contents, storage.get("bucket", "target"));
+        assertEquals(Collections.singletonList("target"), storage.names());
+    }
+
+    @Test
+    public void failsNextWriteOnceAPartFailed() throws Exception {
+        uploader = new CompositeUploader(4, 1, 1);
+        storage.failWrites(name -> name.contains(".part-"));
+        WritableByteChannel channel = uploader.open(storage.getStorage(), TARGET);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        try {
+            while (System.nanoTime() < deadline) {
+                channel.write(ByteBuffer.wrap(bytes(4)));
+                Thread.sleep(10);
+            }
+            fail("Expected a write to fail after the part upload failed");
+        } catch (IOException e) {
+            assertEquals(StorageException.class, e.getCause().getClass());
+        }
+        try {
+            channel.close();
+            fail("Expected the close to fail");
+        } catch (StorageException e) {
+            assertEquals(400, e.getCode());
+        }
+        assertEquals(Collections.emptyList(), storage.names());
+    }
+
+    private void write(byte[] contents) throws IOException {
+        try (WritableByteChannel channel = uploader.open(storage.getStorage(), TARGET)) {
+            // Written in uneven slices so parts span several writes
+            for (int from = 0; from < contents.length; from += 3) {
+                channel.write(ByteBuffer.wrap(contents, from, Math.min(3, contents.length - from)));
+            }
+        }
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
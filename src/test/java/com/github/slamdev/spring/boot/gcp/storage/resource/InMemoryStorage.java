@@ -0,0 +1,214 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * In-memory {@link Storage} for tests, built on the public client API only. Supports reads, resumable writes, compose
+ * and batch deletes, and fails on everything else.
+ */
+final class InMemoryStorage {
+
+    private final Map<BlobId, byte[]> objects = new ConcurrentHashMap<>();
+    private final AtomicInteger readers = new AtomicInteger();
+    private final AtomicInteger writers = new AtomicInteger();
+    private final AtomicInteger composes = new AtomicInteger();
+    private final Storage storage;
+    private volatile Predicate<String> failingWrites = name -> false;
+    private volatile Predicate<Long> failingReads = position -> false;
+
+    InMemoryStorage() {
+        this.storage = proxy(Storage.class, this::invoke);
+    }
+
+    Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Makes writes of the objects whose names match fail with a non retryable error.
+     */
+    void failWrites(Predicate<String> names) {
+        this.failingWrites = names;
+    }
+
+    /**
+     * Makes reads fail with a retryable error when the position they read from matches.
+     */
+    void failReads(Predicate<Long> positions) {
+        this.failingReads = positions;
+    }
+
+    void put(String bucket, String name, byte[] contents) {
+        objects.put(BlobId.of(bucket, name), contents);
+    }
+
+    byte[] get(String bucket, String name) {
+        return objects.get(BlobId.of(bucket, name));
+    }
+
+    List<String> names() {
+        List<String> names = new ArrayList<>();
+        objects.keySet().forEach(id -> names.add(id.getName()));
+        return names;
+    }
+
+    int getReaders() {
+        return readers.get();
+    }
+
+    int getWriters() {
+        return writers.get();
+    }
+
+    int getComposes() {
+        return composes.get();
+    }
+
+    private Object invoke(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "reader":
+                if (args[0] instanceof BlobId) {
+                    return reader((BlobId) args[0]);
+                }
+                break;
+            case "writer":
+                if (args[0] instanceof BlobInfo) {
+                    return writer(((BlobInfo) args[0]).getBlobId());
+                }
+                break;
+            case "compose":
+                return compose((Storage.ComposeRequest) args[0]);
+            case "delete":
+                if (args[0] instanceof Iterable) {
+                    List<Boolean> deleted = new ArrayList<>();
+                    for (Object id : (Iterable<?>) args[0]) {
+                        deleted.add(objects.remove(id) != null);
+                    }
+                    return deleted;
+                }
+                break;
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return args[0] == storage;
+            case "toString":
+                return "InMemoryStorage";
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException(method.toString());
+    }
+
+    private ReadChannel reader(BlobId id) {
+        readers.incrementAndGet();
+        byte[] contents = objects.get(BlobId.of(id.getBucket(), id.getName()));
+        if (contents == null) {
+            throw new StorageException(404, "Object " + id + " not found");
+        }
+        long[] position = {0};
+        boolean[] open = {true};
+        return proxy(ReadChannel.class, (method, args) -> {
+            switch (method.getName()) {
+                case "read":
+                    if (failingReads.test(position[0])) {
+                        throw new StorageException(503, "Read of " + id + " at " + position[0] + " failed");
+                    }
+                    ByteBuffer dst = (ByteBuffer) args[0];
+                    if (position[0] >= contents.length) {
+                        return -1;
+                    }
+                    int count = (int) Math.min(dst.remaining(), contents.length - position[0]);
+                    dst.put(contents, (int) position[0], count);
+                    position[0] += count;
+                    return count;
+                case "seek":
+                    position[0] = (Long) args[0];
+                    return null;
+                case "isOpen":
+                    return open[0];
+                case "close":
+                    open[0] = false;
+                    return null;
+                case "setChunkSize":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    private WriteChannel writer(BlobId id) {
+        writers.incrementAndGet();
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        boolean[] open = {true};
+        return proxy(WriteChannel.class, (method, args) -> {
+            switch (method.getName()) {
+                case "write":
+                    if (failingWrites.test(id.getName())) {
+                        throw new StorageException(400, "Write of " + id + " failed");
+                    }
+                    ByteBuffer src = (ByteBuffer) args[0];
+                    int count = src.remaining();
+                    while (src.hasRemaining()) {
+                        contents.write(src.get());
+                    }
+                    return count;
+                case "isOpen":
+                    return open[0];
+                case "close":
+                    if (open[0]) {
+                        open[0] = false;
+                        objects.put(BlobId.of(id.getBucket(), id.getName()), contents.toByteArray());
+                    }
+                    return null;
+                case "setChunkSize":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        });
+    }
+
+    private Object compose(Storage.ComposeRequest request) {
+        composes.incrementAndGet();
+        BlobInfo target = request.getTarget();
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        for (Storage.ComposeRequest.SourceBlob source : request.getSourceBlobs()) {
+            byte[] bytes = objects.get(BlobId.of(target.getBucket(), source.getName()));
+            if (bytes == null) {
+                throw new StorageException(404, "Source " + source.getName() + " not found");
+            }
+            contents.write(bytes, 0, bytes.length);
+        }
+        objects.put(BlobId.of(target.getBucket(), target.getName()), contents.toByteArray());
+        // Callers do not use the returned blob
+        return null;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method, args)));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object invoke(Method method, Object[] args);
+    }
+}
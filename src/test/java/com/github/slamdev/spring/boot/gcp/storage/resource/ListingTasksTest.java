@@ -0,0 +1,63 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ListingTasksTest {
+
+    private static final int TASKS = 100_000;
+
+    @Test
+    public void runsWideTreeInlineWithoutGrowingTheStack() {
+        ListingTasks tasks = new ListingTasks(Runnable::run, 1);
+        AtomicInteger completed = new AtomicInteger();
+        tasks.submit(() -> {
+            for (int i = 0; i < TASKS; i++) {
+                tasks.submit(completed::incrementAndGet);
+            }
+        });
+
+        tasks.await();
+
+        assertEquals(TASKS, completed.get());
+    }
+
+    @Test
+    public void runsDeepTreeInlineWithoutGrowingTheStack() {
+        ListingTasks tasks = new ListingTasks(Runnable::run, 1);
+        AtomicInteger depth = new AtomicInteger();
+        tasks.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (depth.incrementAndGet() < TASKS) {
+                    tasks.submit(this);
+                }
+            }
+        });
+
+        tasks.await();
+
+        assertEquals(TASKS, depth.get());
+    }
+
+    @Test
+    public void rethrowsErrors() {
+        ListingTasks tasks = new ListingTasks(Runnable::run, 1);
+        AssertionError error = new AssertionError("listing failed");
+        tasks.submit(() -> {
+            throw error;
+        });
+
+        try {
+            tasks.await();
+            fail("Expected the error of the task");
+        } catch (AssertionError e) {
+            assertSame(error, e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Blob;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LocalFileCacheTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    @Test
+    public void downloadsObjectVersionOnce() throws IOException {
+        LocalFileCache cache = new LocalFileCache(folder.getRoot().toPath(), 1024);
+        byte[] contents = bytes(100, 1);
+        Blob blob = TestBlobs.blob("bucket", "a", 1, contents);
+
+        Path first = cache.get(blob, source(contents));
+        Path second = cache.get(blob, source(contents));
+
+        assertEquals(first, second);
+        assertArrayEquals(contents, Files.readAllBytes(first));
+        assertEquals(1, downloads.get());
+    }
+
+    @Test
+    public void rejectsDownloadWithChecksumMismatch() throws IOException {
+        LocalFileCache cache = new LocalFileCache(folder.getRoot().toPath(), 1024);
+        Blob blob = TestBlobs.blob("bucket", "a", 1, bytes(100, 1));
+
+        try {
+            cache.get(blob, source(bytes(100, 2)));
+            fail("Expected the checksum mismatch to fail the download");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Checksum mismatch"));
+        }
+        assertEquals(0, cachedFiles().size());
+    }
+
+    @Test
+    public void keepsRecentlyUsedFilesOverMaxSize() throws IOException {
+        LocalFileCache cache = new LocalFileCache(folder.getRoot().toPath(), 10);
+
+        Path first = get(cache, "a", 8);
+        Path second = get(cache, "b", 8);
+
+        assertTrue(Files.exists(first));
+        assertTrue(Files.exists(second));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedFileAfterGraceWindow() throws IOException {
+        LocalFileCache cache = new LocalFileCache(folder.getRoot().toPath(), 10);
+        Path first = get(cache, "a", 8);
+        Files.setLastModifiedTime(first, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1)));
+
+        Path second = get(cache, "b", 8);
+
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+    }
+
+    @Test
+    public void sharesDirectoryBetweenCachesOfOneJvm() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        LocalFileCache[] caches = {new LocalFileCache(directory, 64), new LocalFileCache(directory, 64)};
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                LocalFileCache cache = caches[i % caches.length];
+                String name = "object-" + i;
+                results.add(executor.submit(() -> get(cache, name, 8)));
+            }
+            for (Future<Path> result : results) {
+                // Fails with an OverlappingFileLockException when both caches lock the directory at once
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Path get(LocalFileCache cache, String name, int size) throws IOException {
+        byte[] contents = bytes(size, name.hashCode());
+        return cache.get(TestBlobs.blob("bucket", name, 1, contents), source(contents));
+    }
+
+    private Supplier<ReadableByteChannel> source(byte[] contents) {
+        return () -> {
+            downloads.incrementAndGet();
+            return Channels.newChannel(new ByteArrayInputStream(contents));
+        };
+    }
+
+    private List<Path> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            return files.filter(f -> !f.getFileName().toString().startsWith(".")).collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i + seed);
+        }
+        return bytes;
+    }
+}
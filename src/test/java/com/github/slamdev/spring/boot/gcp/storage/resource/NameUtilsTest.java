@@ -0,0 +1,91 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NameUtilsTest {
+
+    @Test
+    public void parsesBucketAndObject() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/path/to/object.txt");
+
+        assertEquals("bucket", location.getBucketName());
+        assertEquals("path/to/object.txt", location.getObjectName());
+        assertNull(location.getGeneration());
+    }
+
+    @Test
+    public void stripsTrailingSlash() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/path/to/");
+
+        assertEquals("path/to", location.getObjectName());
+        assertNull(location.getGeneration());
+    }
+
+    @Test
+    public void parsesGeneration() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/path/object.txt^1507555345235000");
+
+        assertEquals("path/object.txt", location.getObjectName());
+        assertEquals(Long.valueOf(1507555345235000L), location.getGeneration());
+        assertEquals("gcs://bucket/path/object.txt^1507555345235000", location.toString());
+    }
+
+    @Test
+    public void stripsTrailingSlashBeforeGeneration() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/path/^42");
+
+        assertEquals("path", location.getObjectName());
+        assertEquals(Long.valueOf(42L), location.getGeneration());
+    }
+
+    @Test
+    public void keepsNonNumericCaretInObjectName() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/a^b.txt");
+
+        assertEquals("a^b.txt", location.getObjectName());
+        assertNull(location.getGeneration());
+    }
+
+    @Test
+    public void keepsCaretOfOutOfRangeGenerationInObjectName() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket/a^99999999999999999999");
+
+        assertEquals("a^99999999999999999999", location.getObjectName());
+        assertNull(location.getGeneration());
+    }
+
+    @Test
+    public void keepsCaretInBucketName() {
+        StorageLocation location = NameUtils.parseLocation("gcs://bucket^1/object");
+
+        assertEquals("bucket^1", location.getBucketName());
+        assertEquals("object", location.getObjectName());
+        assertNull(location.getGeneration());
+    }
+
+    @Test
+    public void acceptsUpperCaseProtocol() {
+        assertTrue(NameUtils.isStorageResource("GCS://bucket/object"));
+        assertFalse(NameUtils.isStorageResource("classpath:object"));
+
+        StorageLocation location = NameUtils.parseLocation("GCS://bucket/object");
+
+        assertEquals("bucket", location.getBucketName());
+        assertEquals("object", location.getObjectName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLocationWithoutBucket() {
+        NameUtils.parseLocation("gcs:///object");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLocationWithoutObjectDelimiter() {
+        NameUtils.parseLocation("gcs://bucket");
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.junit.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathMatchingSimpleStorageResourcePatternResolverTest {
+
+    private final PathMatchingSimpleStorageResourcePatternResolver resolver = new PathMatchingSimpleStorageResourcePatternResolver(
+            null, new SimpleStorageResourceLoader(null), new PathMatchingResourcePatternResolver());
+
+    @Test
+    public void streamsStorageResourceForLocationWithoutWildcards() {
+        try (Stream<StorageResource> resources = resolver.streamStorageResources("gcs://bucket/tenants/part-00001.json")) {
+            List<StorageResource> list = resources.collect(toList());
+
+            assertEquals(1, list.size());
+            assertEquals("bucket", list.get(0).getLocation().getBucketName());
+            assertEquals("tenants/part-00001.json", list.get(0).getLocation().getObjectName());
+        }
+    }
+
+    @Test
+    public void delegatesNonStoragePatterns() {
+        String pattern = "classpath*:com/github/slamdev/spring/boot/gcp/storage/resource/*Test.class";
+        try (Stream<Resource> resources = resolver.streamResources(pattern)) {
+            List<String> names = resources.map(Resource::getFilename).collect(toList());
+
+            assertTrue(names.contains("PathMatchingSimpleStorageResourcePatternResolverTest.class"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonStoragePatternsWhenStreamingStorageResources() {
+        resolver.streamStorageResources("classpath*:com/github/slamdev/**/*.class");
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.StorageException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RangedDownloaderTest {
+
+    private final InMemoryStorage storage = new InMemoryStorage();
+
+    private RangedDownloader downloader;
+
+    @After
+    public void tearDown() {
+        downloader.shutdown();
+    }
+
+    @Test
+    public void readsRangesInOrder() throws IOException {
+        downloader = new RangedDownloader(0, 3, 2, 1);
+        byte[] contents = bytes(10);
+
+        assertArrayEquals(contents, download(put(contents)));
+        assertEquals(4, storage.getReaders());
+    }
+
+    @Test
+    public void retriesOnlyTheFailedRange() throws IOException {
+        downloader = new RangedDownloader(0, 3, 2, 2);
+        byte[] contents = bytes(10);
+        Blob blob = put(contents);
+        Set<Long> failed = ConcurrentHashMap.newKeySet();
+        storage.failReads(position -> position == 3 && failed.add(position));
+
+        assertArrayEquals(contents, download(blob));
+        assertEquals(5, storage.getReaders());
+    }
+
+    @Test
+    public void failsOnceRangeAttemptsAreExhausted() throws IOException {
+        downloader = new RangedDownloader(0, 3, 2, 2);
+        Blob blob = put(bytes(10));
+        storage.failReads(position -> position == 3);
+
+        try {
+            download(blob);
+            fail("Expected the download to fail");
+        } catch (StorageException e) {
+            assertEquals(503, e.getCode());
+        }
+    }
+
+    private Blob put(byte[] contents) {
+        storage.put("bucket", "object", contents);
+        return TestBlobs.blob("bucket", "object", 1, contents);
+    }
+
+    private byte[] download(Blob blob) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReadableByteChannel channel = downloader.open(storage.getStorage(), blob)) {
+            // Smaller than a range so ranges are consumed across reads
+            ByteBuffer buffer = ByteBuffer.allocate(2);
+            while (channel.read(buffer) >= 0) {
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
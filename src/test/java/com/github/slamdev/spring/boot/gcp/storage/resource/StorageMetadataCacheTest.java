@@ -0,0 +1,39 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.cloud.storage.BlobId;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class StorageMetadataCacheTest {
+
+    private static final BlobId LIVE = BlobId.of("bucket", "object");
+
+    private static final BlobId VERSION = BlobId.of("bucket", "object", 42L);
+
+    private final StorageMetadataCache cache = new StorageMetadataCache(100, 60, 60, TimeUnit.SECONDS);
+
+    @Test
+    public void invalidatesLiveVersionTogetherWithGeneration() {
+        cache.get(LIVE, id -> null);
+        cache.get(VERSION, id -> null);
+
+        cache.invalidate(VERSION);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keepsGenerationsWhenLiveVersionIsInvalidated() {
+        cache.get(LIVE, id -> null);
+        cache.get(VERSION, id -> null);
+
+        cache.invalidate(LIVE);
+
+        assertEquals(1, cache.size());
+        cache.get(VERSION, id -> null);
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotNull;
+
+public class StorageResourceTest {
+
+    private final SimpleStorageResourceLoader loader = new SimpleStorageResourceLoader(null);
+
+    @Test(expected = IllegalStateException.class)
+    public void failsAsyncWithoutExecutor() {
+        resource().async();
+    }
+
+    @Test
+    public void runsAsyncOnLoaderExecutor() {
+        loader.setAsyncExecutor(Runnable::run);
+
+        assertNotNull(resource().async());
+    }
+
+    private StorageResource resource() {
+        return (StorageResource) loader.getResource("gcs://bucket/object");
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.slamdev.spring.boot.gcp.storage.resource;
+
+import com.google.api.services.storage.model.StorageObject;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageOptions;
+import com.google.cloud.storage.spi.StorageRpcFactory;
+import com.google.cloud.storage.spi.v1.StorageRpc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+
+/**
+ * Creates {@link Blob} metadata for tests. Blobs are only created by a storage, so they come from
+ * {@code storage.create} of the regular client over a {@link StorageRpc} that echoes the created object. The client
+ * sets the crc32c and MD5 hashes of the contents, nothing is stored.
+ */
+final class TestBlobs {
+
+    private static final Storage STORAGE = StorageOptions.newBuilder()
+            .setProjectId("test")
+            .setCredentials(NoCredentials.getInstance())
+            .setServiceRpcFactory((StorageRpcFactory) options -> rpc())
+            .build()
+            .getService();
+
+    private TestBlobs() {
+    }
+
+    static Blob blob(String bucket, String name, long generation, byte[] contents) {
+        return STORAGE.create(BlobInfo.newBuilder(BlobId.of(bucket, name, generation)).build(), contents);
+    }
+
+    private static StorageRpc rpc() {
+        return (StorageRpc) Proxy.newProxyInstance(StorageRpc.class.getClassLoader(), new Class<?>[]{StorageRpc.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "create":
+                            StorageObject object = (StorageObject) args[0];
+                            return object.setSize(BigInteger.valueOf(count((InputStream) args[1])));
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return args[0] == proxy;
+                        case "toString":
+                            return "TestBlobsRpc";
+                        default:
+                            throw new UnsupportedOperationException(method.toString());
+                    }
+                });
+    }
+
+    private static long count(InputStream content) {
+        try {
+            long count = 0;
+            while (content.read() >= 0) {
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}